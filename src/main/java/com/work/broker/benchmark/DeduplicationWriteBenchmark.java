@@ -0,0 +1,113 @@
+package com.work.broker.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.work.broker.entity.ProcessedMessage;
+import com.work.broker.repository.ProcessedMessageBatchWriter;
+import com.work.broker.repository.ProcessedMessageRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-path benchmark for processed_messages (profile "benchmark").
+ *
+ * Inserts the same number of fresh records with each strategy and logs the
+ * throughput:
+ * - merge:        em.merge() per transaction, what save() did before
+ *                 ProcessedMessage implemented Persistable (SELECT + INSERT)
+ * - persist:      repository.save() of a new entity per transaction (sync mode)
+ * - persist-batch: repository.saveAll() in one transaction, Hibernate JDBC batching
+ * - jdbc-batch:   ProcessedMessageBatchWriter, the batched write mode fast path
+ *
+ * Every run uses its own queue name and its rows are deleted afterwards.
+ */
+@Component
+@Profile("benchmark")
+@RequiredArgsConstructor
+@Slf4j
+public class DeduplicationWriteBenchmark implements ApplicationRunner {
+
+    private final ProcessedMessageRepository repository;
+    private final ProcessedMessageBatchWriter batchWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${benchmark.records:5000}")
+    private int records;
+
+    @Value("${benchmark.warmup-records:2000}")
+    private int warmupRecords;
+
+    @Value("${benchmark.batch-size:200}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Deduplication write benchmark - {} records per strategy ({} warm-up)", records, warmupRecords);
+
+        for (boolean warmup : new boolean[] {true, false}) {
+            int count = warmup ? warmupRecords : records;
+            run("merge", count, warmup, batch -> batch.forEach(processed ->
+                    transactionTemplate.executeWithoutResult(status -> entityManager.merge(processed))));
+            run("persist", count, warmup, batch -> batch.forEach(processed ->
+                    transactionTemplate.executeWithoutResult(status -> repository.save(processed))));
+            run("persist-batch", count, warmup, batch -> chunks(batch).forEach(chunk ->
+                    transactionTemplate.executeWithoutResult(status -> repository.saveAll(chunk))));
+            run("jdbc-batch", count, warmup, batch -> chunks(batch).forEach(chunk ->
+                    transactionTemplate.executeWithoutResult(status -> batchWriter.insertAll(chunk))));
+        }
+    }
+
+    private void run(String strategy, int count, boolean warmup, Consumer<List<ProcessedMessage>> writer) {
+        String queueName = "benchmark." + strategy + "." + UUID.randomUUID();
+        List<ProcessedMessage> batch = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            batch.add(ProcessedMessage.builder()
+                    .messageId(UUID.randomUUID().toString())
+                    .queueName(queueName)
+                    .processedAt(now)
+                    .status("PROCESSED")
+                    .messageType("benchmark")
+                    .build());
+        }
+
+        long start = System.nanoTime();
+        writer.accept(batch);
+        long elapsedNanos = System.nanoTime() - start;
+
+        jdbcTemplate.update("DELETE FROM processed_messages WHERE queue_name = ?", queueName);
+
+        if (!warmup) {
+            log.info("{}: {} records in {} ms - {} records/s, {} us/record",
+                    String.format("%-13s", strategy), count, elapsedNanos / 1_000_000,
+                    (long) (count / (elapsedNanos / 1_000_000_000.0)), elapsedNanos / 1_000 / count);
+        }
+    }
+
+    private List<List<ProcessedMessage>> chunks(List<ProcessedMessage> batch) {
+        List<List<ProcessedMessage>> chunks = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i += batchSize) {
+            chunks.add(batch.subList(i, Math.min(i + batchSize, batch.size())));
+        }
+        return chunks;
+    }
+}
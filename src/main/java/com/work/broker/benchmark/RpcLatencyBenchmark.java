@@ -0,0 +1,167 @@
+package com.work.broker.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.work.broker.model.EventMessage;
+import com.work.broker.producer.RpcClient;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Round-trip latency of RpcClient at increasing concurrency
+ * (POST /api/rpc/benchmark, profile "benchmark").
+ *
+ * Closed loop: at concurrency N, N callers each send an echo request and
+ * send the next one as soon as the reply arrives, until the level's request
+ * count is reached. Per level it reports throughput and latency percentiles
+ * of the successful calls. A warm-up round at concurrency 1 runs first and
+ * is not reported. Requests per level are capped at benchmark.rpc.max-requests.
+ */
+@Component
+@Profile("benchmark")
+@RequiredArgsConstructor
+@Slf4j
+public class RpcLatencyBenchmark {
+
+    private static final int WARMUP_REQUESTS = 200;
+
+    private final RpcClient rpcClient;
+
+    @Value("${benchmark.rpc.max-requests:100000}")
+    private int maxRequests;
+
+    public synchronized Map<String, Object> run(int requests, List<Integer> concurrencyLevels)
+            throws InterruptedException {
+        if (requests < 1 || requests > maxRequests) {
+            throw new IllegalArgumentException("requests must be between 1 and benchmark.rpc.max-requests (" + maxRequests + ")");
+        }
+        for (int concurrency : concurrencyLevels) {
+            if (concurrency < 1 || concurrency > rpcClient.getMaxPending()) {
+                throw new IllegalArgumentException(
+                        "concurrency must be between 1 and rabbitmq.rpc.max-pending (" + rpcClient.getMaxPending() + ")");
+            }
+        }
+
+        runLevel(Math.min(requests, WARMUP_REQUESTS), 1);
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("requestsPerLevel", requests);
+        List<Map<String, Object>> levels = new ArrayList<>();
+        for (int concurrency : concurrencyLevels) {
+            Map<String, Object> level = runLevel(requests, concurrency);
+            log.info("RPC benchmark concurrency {}: {}", concurrency, level);
+            levels.add(level);
+        }
+        results.put("levels", levels);
+        return results;
+    }
+
+    private Map<String, Object> runLevel(int requests, int concurrency) throws InterruptedException {
+        Run run = new Run(requests);
+        long start = System.nanoTime();
+        for (int i = 0; i < Math.min(concurrency, requests); i++) {
+            next(run);
+        }
+        run.done.await();
+        long elapsed = System.nanoTime() - start;
+
+        int succeeded = run.succeeded.get();
+        long[] sorted = Arrays.copyOf(run.latencies, succeeded);
+        Arrays.sort(sorted);
+
+        Map<String, Object> level = new LinkedHashMap<>();
+        level.put("concurrency", concurrency);
+        level.put("succeeded", succeeded);
+        level.put("errors", run.errors.sum());
+        level.put("throughputPerSecond", Math.round(requests / (elapsed / 1_000_000_000.0)));
+        level.put("p50Micros", percentile(sorted, 0.50));
+        level.put("p90Micros", percentile(sorted, 0.90));
+        level.put("p99Micros", percentile(sorted, 0.99));
+        level.put("maxMicros", sorted.length > 0 ? TimeUnit.NANOSECONDS.toMicros(sorted[sorted.length - 1]) : null);
+        return level;
+    }
+
+    /**
+     * Send requests for one caller: each reply sends the next request. Calls
+     * that complete immediately (e.g. rejected) are handled in the loop
+     * rather than by recursing.
+     */
+    private void next(Run run) {
+        while (run.issued.getAndIncrement() < run.requests) {
+            long sentAt = System.nanoTime();
+            CompletableFuture<EventMessage> reply;
+            try {
+                reply = rpcClient.call(echoRequest());
+            } catch (RuntimeException e) {
+                run.record(sentAt, e);
+                continue;
+            }
+            if (!reply.isDone()) {
+                reply.whenComplete((response, error) -> {
+                    run.record(sentAt, error);
+                    next(run);
+                });
+                return;
+            }
+            run.record(sentAt, reply.handle((response, error) -> error).join());
+        }
+    }
+
+    private static EventMessage echoRequest() {
+        return EventMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .type("echo")
+                .content("ping")
+                .timestamp(LocalDateTime.now())
+                .source("rpc-benchmark")
+                .build();
+    }
+
+    private static Long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return null;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, index)]);
+    }
+
+    private static final class Run {
+        private final int requests;
+        private final long[] latencies;
+        private final AtomicInteger issued = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final LongAdder errors = new LongAdder();
+        private final CountDownLatch done;
+
+        private Run(int requests) {
+            this.requests = requests;
+            this.latencies = new long[requests];
+            this.done = new CountDownLatch(requests);
+        }
+
+        private void record(long sentAt, Throwable error) {
+            if (error == null) {
+                latencies[succeeded.getAndIncrement()] = System.nanoTime() - sentAt;
+            } else {
+                errors.increment();
+            }
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.work.broker.config;
+
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory.CacheMode;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory.ConfirmType;
+import org.springframework.amqp.rabbit.connection.RabbitConnectionFactoryBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.amqp.autoconfigure.CachingConnectionFactoryConfigurer;
+import org.springframework.boot.amqp.autoconfigure.ConnectionFactoryCustomizer;
+import org.springframework.boot.amqp.autoconfigure.RabbitConnectionFactoryBeanConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Connection pool configuration
+ *
+ * Publishers and consumers use separate CachingConnectionFactory instances,
+ * so broker flow control on consumer connections never blocks publishing and
+ * the two sides don't contend on the same channel cache.
+ *
+ * - consumerConnectionFactory (primary): listener containers and RabbitAdmin
+ * - publisherConnectionFactory: RabbitTemplate
+ *
+ * Both start from the spring.rabbitmq.* settings; channel cache size, checkout
+ * timeout and the number of publisher connections are tuned with rabbitmq.pool.*.
+ * With more than one publisher connection the publisher factory switches to
+ * CacheMode.CONNECTION, so concurrent publishing threads are spread over N
+ * connections, each with its own channel cache.
+ *
+ * Publisher confirms are enabled on the publisher factory only
+ * (rabbitmq.pool.publisher.confirm-type) - the reactive publishing path
+ * completes its results from them.
+ */
+@Configuration
+public class ConnectionPoolConfig {
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    @Value("${rabbitmq.pool.consumer.channel-cache-size:25}")
+    private int consumerChannelCacheSize;
+
+    @Value("${rabbitmq.pool.publisher.channel-cache-size:25}")
+    private int publisherChannelCacheSize;
+
+    @Value("${rabbitmq.pool.publisher.checkout-timeout-ms:0}")
+    private long publisherCheckoutTimeout;
+
+    @Value("${rabbitmq.pool.publisher.connections:1}")
+    private int publisherConnections;
+
+    @Value("${rabbitmq.pool.publisher.confirm-type:CORRELATED}")
+    private ConfirmType publisherConfirmType;
+
+    @Bean
+    @Primary
+    public CachingConnectionFactory consumerConnectionFactory(
+            RabbitConnectionFactoryBeanConfigurer rabbitConfigurer,
+            CachingConnectionFactoryConfigurer cachingConfigurer,
+            ObjectProvider<ConnectionFactoryCustomizer> customizers) throws Exception {
+        CachingConnectionFactory factory = createConnectionFactory(rabbitConfigurer, cachingConfigurer, customizers);
+        factory.setChannelCacheSize(consumerChannelCacheSize);
+        factory.setConnectionNameStrategy(cf -> applicationName + "-consumer");
+        return factory;
+    }
+
+    @Bean
+    public CachingConnectionFactory publisherConnectionFactory(
+            RabbitConnectionFactoryBeanConfigurer rabbitConfigurer,
+            CachingConnectionFactoryConfigurer cachingConfigurer,
+            ObjectProvider<ConnectionFactoryCustomizer> customizers) throws Exception {
+        CachingConnectionFactory factory = createConnectionFactory(rabbitConfigurer, cachingConfigurer, customizers);
+        factory.setChannelCacheSize(publisherChannelCacheSize);
+        if (publisherCheckoutTimeout > 0) {
+            factory.setChannelCheckoutTimeout(publisherCheckoutTimeout);
+        }
+        if (publisherConnections > 1) {
+            factory.setCacheMode(CacheMode.CONNECTION);
+            factory.setConnectionCacheSize(publisherConnections);
+            factory.setConnectionLimit(publisherConnections);
+        }
+        factory.setPublisherConfirmType(publisherConfirmType);
+        factory.setConnectionNameStrategy(cf -> applicationName + "-publisher");
+        return factory;
+    }
+
+    /**
+     * Same steps as Boot's auto-configured connection factory, so host,
+     * credentials, SSL and spring.rabbitmq.cache.* keep working.
+     */
+    private CachingConnectionFactory createConnectionFactory(
+            RabbitConnectionFactoryBeanConfigurer rabbitConfigurer,
+            CachingConnectionFactoryConfigurer cachingConfigurer,
+            ObjectProvider<ConnectionFactoryCustomizer> customizers) throws Exception {
+        RabbitConnectionFactoryBean connectionFactoryBean = new RabbitConnectionFactoryBean();
+        rabbitConfigurer.configure(connectionFactoryBean);
+        connectionFactoryBean.afterPropertiesSet();
+        com.rabbitmq.client.ConnectionFactory connectionFactory = connectionFactoryBean.getObject();
+        customizers.orderedStream().forEach(customizer -> customizer.customize(connectionFactory));
+
+        CachingConnectionFactory factory = new CachingConnectionFactory(connectionFactory);
+        cachingConfigurer.configure(factory);
+        return factory;
+    }
+}
@@ -0,0 +1,49 @@
+package com.work.broker.config;
+
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+
+/**
+ * Startup tuning for the "faststart" profile (application-faststart.properties).
+ *
+ * - Lazy initialization only for the web layer: the profile turns on
+ *   spring.main.lazy-initialization and this filter keeps every other bean
+ *   eager. Listener, @Scheduled and lifecycle beans must be created at
+ *   startup or they never register.
+ * - No topology declaration on connect: RabbitAdmin normally redeclares every
+ *   exchange, queue and binding bean (one round trip each) whenever a
+ *   connection opens. Here it does not, and a listener container that finds
+ *   one of its queues missing runs the declarations itself. A new instance
+ *   joining an existing deployment therefore declares nothing.
+ */
+@Configuration
+@Profile("faststart")
+public class FastStartConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerOutsideWebLayer() {
+        return (beanName, beanDefinition, beanType) ->
+                !AnnotatedElementUtils.hasAnnotation(beanType, Controller.class)
+                        && !AnnotatedElementUtils.hasAnnotation(beanType, ControllerAdvice.class);
+    }
+
+    @Bean
+    public static BeanPostProcessor declareOnDemandRabbitAdmin() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RabbitAdmin admin) {
+                    admin.setAutoStartup(false);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.work.broker.config;
+
+import java.lang.reflect.Type;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+
+import com.work.broker.model.ContentFingerprint;
+import com.work.broker.model.EventMessage;
+
+/**
+ * Adds the x-content-fingerprint header to every EventMessage on its way out,
+ * so the fingerprint is computed once, by whichever producer path publishes it
+ * (sync, reactive, outbox relay). Only installed with deduplication.key=fingerprint.
+ */
+public class FingerprintingMessageConverter implements SmartMessageConverter {
+
+    private final SmartMessageConverter delegate;
+
+    public FingerprintingMessageConverter(SmartMessageConverter delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        addFingerprint(object, messageProperties);
+        return delegate.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties, Type genericType)
+            throws MessageConversionException {
+        addFingerprint(object, messageProperties);
+        return delegate.toMessage(object, messageProperties, genericType);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        return delegate.fromMessage(message);
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) throws MessageConversionException {
+        return delegate.fromMessage(message, conversionHint);
+    }
+
+    private void addFingerprint(Object object, MessageProperties messageProperties) {
+        if (object instanceof EventMessage message) {
+            messageProperties.setHeader(ContentFingerprint.HEADER, ContentFingerprint.of(message));
+        }
+    }
+}
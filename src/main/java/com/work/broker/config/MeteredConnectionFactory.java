@@ -0,0 +1,147 @@
+package com.work.broker.config;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+
+import com.rabbitmq.client.BlockedListener;
+import com.rabbitmq.client.Channel;
+import com.work.broker.monitoring.ConnectionPoolMetrics;
+
+/**
+ * ConnectionFactory decorator used by the RabbitTemplate: reports the time
+ * each publisher channel checkout takes to ConnectionPoolMetrics.
+ *
+ * The wait is the time spent in Connection.createChannel() - channel cache
+ * lookup and any blocking on the channel checkout timeout. Channels are
+ * handed out undecorated, so publisher confirms and returns work exactly as
+ * with the underlying CachingConnectionFactory.
+ */
+public class MeteredConnectionFactory implements ConnectionFactory {
+
+    private final ConnectionFactory delegate;
+    private final ConnectionPoolMetrics metrics;
+
+    public MeteredConnectionFactory(ConnectionFactory delegate, ConnectionPoolMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection createConnection() throws AmqpException {
+        return new MeteredConnection(delegate.createConnection());
+    }
+
+    @Override
+    public String getHost() {
+        return delegate.getHost();
+    }
+
+    @Override
+    public int getPort() {
+        return delegate.getPort();
+    }
+
+    @Override
+    public String getVirtualHost() {
+        return delegate.getVirtualHost();
+    }
+
+    @Override
+    public String getUsername() {
+        return delegate.getUsername();
+    }
+
+    @Override
+    public void addConnectionListener(ConnectionListener listener) {
+        delegate.addConnectionListener(listener);
+    }
+
+    @Override
+    public boolean removeConnectionListener(ConnectionListener listener) {
+        return delegate.removeConnectionListener(listener);
+    }
+
+    @Override
+    public void clearConnectionListeners() {
+        delegate.clearConnectionListeners();
+    }
+
+    @Override
+    public ConnectionFactory getPublisherConnectionFactory() {
+        return delegate.getPublisherConnectionFactory();
+    }
+
+    @Override
+    public boolean isSimplePublisherConfirms() {
+        return delegate.isSimplePublisherConfirms();
+    }
+
+    @Override
+    public boolean isPublisherConfirms() {
+        return delegate.isPublisherConfirms();
+    }
+
+    @Override
+    public boolean isPublisherReturns() {
+        return delegate.isPublisherReturns();
+    }
+
+    @Override
+    public void resetConnection() {
+        delegate.resetConnection();
+    }
+
+    private final class MeteredConnection implements Connection {
+
+        private final Connection target;
+
+        private MeteredConnection(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Channel createChannel(boolean transactional) throws AmqpException {
+            long start = System.nanoTime();
+            Channel channel = target.createChannel(transactional);
+            metrics.channelAcquired(System.nanoTime() - start);
+            return channel;
+        }
+
+        @Override
+        public void close() throws AmqpException {
+            target.close();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return target.isOpen();
+        }
+
+        @Override
+        public int getLocalPort() {
+            return target.getLocalPort();
+        }
+
+        @Override
+        public void addBlockedListener(BlockedListener listener) {
+            target.addBlockedListener(listener);
+        }
+
+        @Override
+        public boolean removeBlockedListener(BlockedListener listener) {
+            return target.removeBlockedListener(listener);
+        }
+
+        @Override
+        public com.rabbitmq.client.Connection getDelegate() {
+            return target.getDelegate();
+        }
+
+        @Override
+        public void closeThreadChannel() {
+            target.closeThreadChannel();
+        }
+    }
+}
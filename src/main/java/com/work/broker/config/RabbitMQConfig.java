@@ -5,36 +5,109 @@ import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import com.work.broker.lifecycle.InFlightMessages;
+import com.work.broker.monitoring.ConnectionPoolMetrics;
+import com.work.broker.monitoring.QueueDepthMonitor;
+import com.work.broker.monitoring.StartupTimer;
+import com.work.broker.tracing.ObservedMessageConverter;
+import com.work.broker.tracing.PublishTimestamps;
+import com.work.broker.tracing.QueueWaitObservationConvention;
+
+import io.micrometer.observation.ObservationRegistry;
 
 /**
  * General RabbitMQ Configuration
  * Uses JacksonJsonMessageConverter (Spring AMQP 4.x with Jackson 3.x)
+ *
+ * RabbitTemplate publishes through the publisher connection factory and the
+ * listener containers consume through the consumer one (see ConnectionPoolConfig).
+ *
+ * priorityListenerContainerFactory is a separate consumer pool for priority
+ * queues: its own threads, so alerts never wait for a bulk consumer, and
+ * prefetch 1, so the broker picks the highest priority message on every
+ * delivery instead of the client working through a prefetched FIFO batch.
+ *
+ * Both factories carry the StartupTimer advice (time to first consumed message),
+ * the QueueDepthMonitor advice (consume rate per queue) and InFlightMessages
+ * (handlers the shutdown drain waits for).
+ *
+ * Tracing uses Micrometer Observation: the template and the containers have
+ * observation enabled, so every publish is a span whose context travels in
+ * the traceparent header and every delivery continues it. The listener
+ * spans also record the queue wait (QueueWaitObservationConvention), and the
+ * converter times (de)serialization as child spans. With
+ * deduplication.key=fingerprint the converter also stamps every EventMessage
+ * with its content fingerprint.
  */
 @Configuration
 public class RabbitMQConfig {
 
     @Bean
-    public MessageConverter messageConverter() {
-        return new JacksonJsonMessageConverter();
+    public MessageConverter messageConverter(ObservationRegistry observationRegistry,
+                                             @Value("${deduplication.key:id}") String deduplicationKey) {
+        SmartMessageConverter converter = new JacksonJsonMessageConverter();
+        if ("fingerprint".equals(deduplicationKey)) {
+            converter = new FingerprintingMessageConverter(converter);
+        }
+        return new ObservedMessageConverter(converter, observationRegistry);
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory,
-                                          MessageConverter messageConverter) {
-        RabbitTemplate template = new RabbitTemplate(connectionFactory);
+    public RabbitTemplate rabbitTemplate(@Qualifier("publisherConnectionFactory") ConnectionFactory connectionFactory,
+                                          MessageConverter messageConverter,
+                                          ConnectionPoolMetrics connectionPoolMetrics) {
+        RabbitTemplate template = new RabbitTemplate(new MeteredConnectionFactory(connectionFactory, connectionPoolMetrics));
         template.setMessageConverter(messageConverter);
+        template.setBeforePublishPostProcessors(PublishTimestamps::stamp);
+        template.setObservationEnabled(true);
         return template;
     }
 
     @Bean
+    @Primary
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
-            ConnectionFactory connectionFactory,
-            MessageConverter messageConverter) {
+            @Qualifier("consumerConnectionFactory") ConnectionFactory connectionFactory,
+            MessageConverter messageConverter,
+            StartupTimer startupTimer,
+            QueueDepthMonitor queueDepthMonitor,
+            InFlightMessages inFlightMessages) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter);
+        factory.setAdviceChain(startupTimer, queueDepthMonitor, inFlightMessages);
+        factory.setObservationEnabled(true);
+        factory.setObservationConvention(new QueueWaitObservationConvention());
+        return factory;
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory priorityListenerContainerFactory(
+            @Qualifier("consumerConnectionFactory") ConnectionFactory connectionFactory,
+            MessageConverter messageConverter,
+            @Value("${rabbitmq.priority.consumer.concurrency:2}") int concurrency,
+            @Value("${rabbitmq.priority.consumer.max-concurrency:4}") int maxConcurrency,
+            @Value("${rabbitmq.priority.consumer.prefetch:1}") int prefetch,
+            StartupTimer startupTimer,
+            QueueDepthMonitor queueDepthMonitor,
+            InFlightMessages inFlightMessages) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(messageConverter);
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(maxConcurrency);
+        factory.setPrefetchCount(prefetch);
+        factory.setTaskExecutor(new SimpleAsyncTaskExecutor("priority-consumer-"));
+        factory.setAdviceChain(startupTimer, queueDepthMonitor, inFlightMessages);
+        factory.setObservationEnabled(true);
+        factory.setObservationConvention(new QueueWaitObservationConvention());
         return factory;
     }
 }
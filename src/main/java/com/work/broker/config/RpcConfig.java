@@ -0,0 +1,42 @@
+package com.work.broker.config;
+
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Request/reply (RPC) configuration
+ *
+ * Requests are published through the default exchange straight to the
+ * request queue (routing key = queue name); the operation is the
+ * EventMessage type. The queue is not durable: a request is only useful
+ * while its caller is waiting.
+ *
+ * Replies use RabbitMQ direct reply-to: AsyncRabbitTemplate, built on the
+ * publishing RabbitTemplate, consumes the amq.rabbitmq.reply-to pseudo-queue
+ * on the channel it sends the request on, so no reply queue is declared per
+ * request or per client.
+ */
+@Configuration
+public class RpcConfig {
+
+    @Value("${rabbitmq.rpc.queue}")
+    private String rpcQueue;
+
+    @Bean
+    public Queue rpcRequestQueue() {
+        return QueueBuilder.nonDurable(rpcQueue).build();
+    }
+
+    @Bean
+    public AsyncRabbitTemplate asyncRabbitTemplate(RabbitTemplate rabbitTemplate,
+                                                   @Value("${rabbitmq.rpc.timeout-ms:5000}") long timeoutMs) {
+        AsyncRabbitTemplate template = new AsyncRabbitTemplate(rabbitTemplate);
+        template.setReceiveTimeout(timeoutMs);
+        return template;
+    }
+}
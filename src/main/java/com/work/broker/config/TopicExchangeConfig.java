@@ -3,6 +3,7 @@ package com.work.broker.config;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -19,6 +20,14 @@ import org.springframework.context.annotation.Configuration;
  * - order.created -> matches "order.*" and "order.#"
  * - order.payment.completed -> matches "order.#" but NOT "order.*"
  * - system.error -> matches "*.error" and "#.error"
+ *
+ * The errors queue is a priority queue (x-max-priority), consumed with
+ * prefetch 1 (priorityListenerContainerFactory), so critical alerts are
+ * delivered ahead of a backlog of regular events. The all-events queue is a
+ * plain queue: its bulk consumer prefetches FIFO batches, where priority
+ * would have no effect. Note that RabbitMQ refuses to redeclare an existing
+ * queue with different arguments: an errors queue created before this
+ * change must be deleted first.
  */
 @Configuration
 public class TopicExchangeConfig {
@@ -35,6 +44,9 @@ public class TopicExchangeConfig {
     @Value("${rabbitmq.topic.queue.all}")
     private String allQueue;
 
+    @Value("${rabbitmq.priority.max:10}")
+    private int maxPriority;
+
     @Bean
     public TopicExchange topicExchange() {
         return new TopicExchange(topicExchange);
@@ -47,7 +59,7 @@ public class TopicExchangeConfig {
 
     @Bean
     public Queue errorsQueue() {
-        return new Queue(errorsQueue, true);
+        return QueueBuilder.durable(errorsQueue).maxPriority(maxPriority).build();
     }
 
     @Bean
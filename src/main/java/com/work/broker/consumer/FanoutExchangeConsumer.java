@@ -1,8 +1,12 @@
 package com.work.broker.consumer;
 
+import org.slf4j.event.Level;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import com.work.broker.logging.MessageLog;
+import com.work.broker.model.ContentFingerprint;
 import com.work.broker.model.EventMessage;
 import com.work.broker.service.MessageDeduplicationService;
 
@@ -19,6 +23,9 @@ import lombok.extern.slf4j.Slf4j;
  * - Message "ABC" arrives at all 3 queues
  * - Each queue processes "ABC" exactly ONCE
  * - Retries/duplicates within each queue are prevented
+ *
+ * Logs one line per delivered notification through MessageLog (sampled,
+ * DEBUG by default) and never the message content.
  */
 @Service
 @RequiredArgsConstructor
@@ -26,6 +33,7 @@ import lombok.extern.slf4j.Slf4j;
 public class FanoutExchangeConsumer {
 
     private final MessageDeduplicationService deduplicationService;
+    private final MessageLog messageLog;
 
     private static final String NOTIFICATION_QUEUE_1 = "fanout.queue.notification1";
     private static final String NOTIFICATION_QUEUE_2 = "fanout.queue.notification2";
@@ -35,22 +43,19 @@ public class FanoutExchangeConsumer {
      * Subscriber 1 - Email Notification Service
      */
     @RabbitListener(queues = "${rabbitmq.fanout.queue.notification1}")
-    public void emailNotificationHandler(EventMessage message) {
-        log.info("=== EMAIL NOTIFICATION SERVICE ===");
-
-        if (!deduplicationService.tryProcess(message.getId(), NOTIFICATION_QUEUE_1, message.getType())) {
-            log.warn("DUPLICATE email notification ignored: {}", message.getId());
+    public void emailNotificationHandler(EventMessage message,
+            @Header(name = ContentFingerprint.HEADER, required = false) String fingerprint) {
+        if (!deduplicationService.tryProcess(message, fingerprint, NOTIFICATION_QUEUE_1)) {
+            logDuplicate(NOTIFICATION_QUEUE_1, message);
             return;
         }
 
         try {
-            log.info("Sending email notification for: {}", message);
             sendEmail(message);
-            log.info("Email sent successfully for message: {}", message.getId());
 
         } catch (Exception e) {
-            log.error("Failed to send email: {}", e.getMessage());
-            deduplicationService.allowReprocess(message.getId());
+            logFailure(NOTIFICATION_QUEUE_1, message, "Failed to send email", e);
+            deduplicationService.allowReprocess(message.getId(), NOTIFICATION_QUEUE_1);
             throw e;
         }
     }
@@ -59,22 +64,19 @@ public class FanoutExchangeConsumer {
      * Subscriber 2 - SMS Notification Service
      */
     @RabbitListener(queues = "${rabbitmq.fanout.queue.notification2}")
-    public void smsNotificationHandler(EventMessage message) {
-        log.info("=== SMS NOTIFICATION SERVICE ===");
-
-        if (!deduplicationService.tryProcess(message.getId(), NOTIFICATION_QUEUE_2, message.getType())) {
-            log.warn("DUPLICATE SMS notification ignored: {}", message.getId());
+    public void smsNotificationHandler(EventMessage message,
+            @Header(name = ContentFingerprint.HEADER, required = false) String fingerprint) {
+        if (!deduplicationService.tryProcess(message, fingerprint, NOTIFICATION_QUEUE_2)) {
+            logDuplicate(NOTIFICATION_QUEUE_2, message);
             return;
         }
 
         try {
-            log.info("Sending SMS notification for: {}", message);
             sendSms(message);
-            log.info("SMS sent successfully for message: {}", message.getId());
 
         } catch (Exception e) {
-            log.error("Failed to send SMS: {}", e.getMessage());
-            deduplicationService.allowReprocess(message.getId());
+            logFailure(NOTIFICATION_QUEUE_2, message, "Failed to send SMS", e);
+            deduplicationService.allowReprocess(message.getId(), NOTIFICATION_QUEUE_2);
             throw e;
         }
     }
@@ -83,38 +85,61 @@ public class FanoutExchangeConsumer {
      * Subscriber 3 - Push Notification Service
      */
     @RabbitListener(queues = "${rabbitmq.fanout.queue.notification3}")
-    public void pushNotificationHandler(EventMessage message) {
-        log.info("=== PUSH NOTIFICATION SERVICE ===");
-
-
-        if (!deduplicationService.tryProcess(message.getId(), NOTIFICATION_QUEUE_3, message.getType())) {
-            log.warn("DUPLICATE push notification ignored: {}", message.getId());
+    public void pushNotificationHandler(EventMessage message,
+            @Header(name = ContentFingerprint.HEADER, required = false) String fingerprint) {
+        if (!deduplicationService.tryProcess(message, fingerprint, NOTIFICATION_QUEUE_3)) {
+            logDuplicate(NOTIFICATION_QUEUE_3, message);
             return;
         }
 
         try {
-            log.info("Sending push notification for: {}", message);
             sendPushNotification(message);
-            log.info("Push notification sent successfully for message: {}", message.getId());
 
         } catch (Exception e) {
-            log.error("Failed to send push notification: {}", e.getMessage());
-            deduplicationService.allowReprocess(message.getId());
+            logFailure(NOTIFICATION_QUEUE_3, message, "Failed to send push notification", e);
+            deduplicationService.allowReprocess(message.getId(), NOTIFICATION_QUEUE_3);
             throw e;
         }
     }
 
 
     private void sendEmail(EventMessage message) {
-        log.info("EMAIL -> To: users@example.com | Subject: {} | Body: {}",
-                message.getType(), message.getContent());
+        messageLog.at(log, NOTIFICATION_QUEUE_1)
+                .addKeyValue("queue", NOTIFICATION_QUEUE_1)
+                .addKeyValue("messageId", message.getId())
+                .addKeyValue("to", "users@example.com")
+                .addKeyValue("subject", message.getType())
+                .log("Email sent");
     }
 
     private void sendSms(EventMessage message) {
-        log.info("SMS -> To: +1234567890 | Message: {}", message.getContent());
+        messageLog.at(log, NOTIFICATION_QUEUE_2)
+                .addKeyValue("queue", NOTIFICATION_QUEUE_2)
+                .addKeyValue("messageId", message.getId())
+                .addKeyValue("to", "+1234567890")
+                .log("SMS sent");
     }
 
     private void sendPushNotification(EventMessage message) {
-        log.info("PUSH -> Title: {} | Body: {}", message.getType(), message.getContent());
+        messageLog.at(log, NOTIFICATION_QUEUE_3)
+                .addKeyValue("queue", NOTIFICATION_QUEUE_3)
+                .addKeyValue("messageId", message.getId())
+                .addKeyValue("title", message.getType())
+                .log("Push notification sent");
+    }
+
+    private void logDuplicate(String queue, EventMessage message) {
+        messageLog.at(log, Level.WARN, queue)
+                .addKeyValue("queue", queue)
+                .addKeyValue("messageId", message.getId())
+                .log("DUPLICATE notification ignored");
+    }
+
+    private void logFailure(String queue, EventMessage message, String description, Exception e) {
+        log.atError()
+                .addKeyValue("queue", queue)
+                .addKeyValue("messageId", message.getId())
+                .addKeyValue("error", e.getMessage())
+                .log(description);
     }
 }
@@ -0,0 +1,58 @@
+package com.work.broker.consumer;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+
+import com.work.broker.model.EventMessage;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server side of the RPC queue (see RpcClient).
+ *
+ * The listener returns the reply: Spring AMQP publishes it to the request's
+ * replyTo (the caller's direct reply-to channel) with its correlation ID.
+ * Operations are selected by the request type:
+ * - echo: replies with the request content
+ *
+ * Failures are answered with an "rpc.error" reply instead of being thrown:
+ * a rejected request would be requeued and retried until it expires while
+ * the caller waits for nothing. Requests are not deduplicated - operations
+ * must be safe to repeat.
+ */
+@Service
+@Slf4j
+public class RpcRequestConsumer {
+
+    private static final String ERROR_TYPE = "rpc.error";
+
+    @RabbitListener(queues = "${rabbitmq.rpc.queue}", concurrency = "${rabbitmq.rpc.server.concurrency:4}")
+    public EventMessage handleRequest(EventMessage request) {
+        try {
+            return switch (request.getType() != null ? request.getType() : "") {
+                case "echo" -> reply(request.getType() + ".reply", request.getContent());
+                default -> reply(ERROR_TYPE, "Unknown RPC operation: " + request.getType());
+            };
+        } catch (RuntimeException e) {
+            log.atError()
+                    .addKeyValue("messageId", request.getId())
+                    .addKeyValue("operation", request.getType())
+                    .setCause(e)
+                    .log("RPC request failed");
+            return reply(ERROR_TYPE, e.getMessage());
+        }
+    }
+
+    private EventMessage reply(String type, String content) {
+        return EventMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .type(type)
+                .content(content)
+                .timestamp(LocalDateTime.now())
+                .source("rpc-server")
+                .build();
+    }
+}
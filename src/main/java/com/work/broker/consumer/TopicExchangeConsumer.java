@@ -1,9 +1,14 @@
 package com.work.broker.consumer;
 
+import org.slf4j.event.Level;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import com.work.broker.logging.MessageLog;
+import com.work.broker.model.ContentFingerprint;
 import com.work.broker.model.EventMessage;
+import com.work.broker.service.EventCoalescer;
 import com.work.broker.service.MessageDeduplicationService;
 
 import lombok.RequiredArgsConstructor;
@@ -14,6 +19,9 @@ import lombok.extern.slf4j.Slf4j;
  *
  * Uses MessageDeduplicationService to prevent duplicate message processing.
  * Each queue tracks its own processed messages independently.
+ *
+ * Logs one line per handled message through MessageLog (sampled, DEBUG by
+ * default) and never the message content.
  */
 @Service
 @RequiredArgsConstructor
@@ -21,6 +29,8 @@ import lombok.extern.slf4j.Slf4j;
 public class TopicExchangeConsumer {
 
     private final MessageDeduplicationService deduplicationService;
+    private final MessageLog messageLog;
+    private final EventCoalescer coalescer;
 
     private static final String ORDERS_QUEUE = "topic.queue.orders";
     private static final String ERRORS_QUEUE = "topic.queue.errors";
@@ -29,26 +39,29 @@ public class TopicExchangeConsumer {
     /**
      * Listens to orders queue - receives "order.*" messages
      * Examples: order.created, order.updated, order.deleted
+     *
+     * With coalescing.window-ms.topic.queue.orders set, bursts of events with
+     * the same key are merged and only the latest one is processed. Every
+     * event is still recorded for deduplication first.
      */
     @RabbitListener(queues = "${rabbitmq.topic.queue.orders}")
-    public void handleOrderEvents(EventMessage message) {
-        log.info("=== ORDERS QUEUE ===");
-
-        if (!deduplicationService.tryProcess(message.getId(), ORDERS_QUEUE, message.getType())) {
-            log.warn("DUPLICATE order event ignored: {}", message.getId());
+    public void handleOrderEvents(EventMessage message,
+            @Header(name = ContentFingerprint.HEADER, required = false) String fingerprint) {
+        if (!deduplicationService.tryProcess(message, fingerprint, ORDERS_QUEUE)) {
+            logDuplicate(ORDERS_QUEUE, message);
             return;
         }
 
         try {
-            log.info("Processing order event: {}", message);
-            log.info("Order details: type={}, content={}",
-                    message.getType(), message.getContent());
-
-            processOrder(message);
+            if (coalescer.isEnabled(ORDERS_QUEUE)) {
+                coalescer.submit(ORDERS_QUEUE, message, this::processOrder);
+            } else {
+                processOrder(message);
+            }
 
         } catch (Exception e) {
-            log.error("Error processing order event: {}", e.getMessage());
-            deduplicationService.allowReprocess(message.getId());
+            logFailure(ORDERS_QUEUE, message, e);
+            deduplicationService.allowReprocess(message.getId(), ORDERS_QUEUE);
             throw e;
         }
     }
@@ -56,27 +69,23 @@ public class TopicExchangeConsumer {
     /**
      * Listens to errors queue - receives "*.error" messages
      * Examples: system.error, payment.error, order.error
+     *
+     * Priority queue, consumed by the dedicated priority pool (prefetch 1).
      */
-    @RabbitListener(queues = "${rabbitmq.topic.queue.errors}")
-    public void handleErrorEvents(EventMessage message) {
-        log.info("=== ERRORS QUEUE ===");
-
-        if (!deduplicationService.tryProcess(message.getId(), ERRORS_QUEUE, message.getType())) {
-            log.warn("DUPLICATE error event ignored: {}", message.getId());
+    @RabbitListener(queues = "${rabbitmq.topic.queue.errors}", containerFactory = "priorityListenerContainerFactory")
+    public void handleErrorEvents(EventMessage message,
+            @Header(name = ContentFingerprint.HEADER, required = false) String fingerprint) {
+        if (!deduplicationService.tryProcess(message, fingerprint, ERRORS_QUEUE)) {
+            logDuplicate(ERRORS_QUEUE, message);
             return;
         }
 
         try {
-            log.info("Processing error event: {}", message);
-            log.warn("ERROR ALERT: type={}, content={}, source={}",
-                    message.getType(), message.getContent(), message.getSource());
-
-
             handleError(message);
 
         } catch (Exception e) {
-            log.error("Error handling error event: {}", e.getMessage());
-            deduplicationService.allowReprocess(message.getId());
+            logFailure(ERRORS_QUEUE, message, e);
+            deduplicationService.allowReprocess(message.getId(), ERRORS_QUEUE);
             throw e;
         }
     }
@@ -85,38 +94,64 @@ public class TopicExchangeConsumer {
      * Listens to all events queue - receives ALL messages ("#" catch-all)
      */
     @RabbitListener(queues = "${rabbitmq.topic.queue.all}")
-    public void handleAllEvents(EventMessage message) {
-        log.info("=== ALL EVENTS QUEUE ===");
-
-
-        if (!deduplicationService.tryProcess(message.getId(), ALL_QUEUE, message.getType())) {
-            log.warn("DUPLICATE event ignored in all-events queue: {}", message.getId());
+    public void handleAllEvents(EventMessage message,
+            @Header(name = ContentFingerprint.HEADER, required = false) String fingerprint) {
+        if (!deduplicationService.tryProcess(message, fingerprint, ALL_QUEUE)) {
+            logDuplicate(ALL_QUEUE, message);
             return;
         }
 
         try {
-            log.info("Received event (catch-all): {}", message);
-
-
             auditEvent(message);
 
         } catch (Exception e) {
-            log.error("Error in all-events handler: {}", e.getMessage());
-            deduplicationService.allowReprocess(message.getId());
+            logFailure(ALL_QUEUE, message, e);
+            deduplicationService.allowReprocess(message.getId(), ALL_QUEUE);
             throw e;
         }
     }
 
 
     private void processOrder(EventMessage message) {
-        log.info("Processing order business logic for: {}", message.getType());
+        messageLog.at(log, ORDERS_QUEUE)
+                .addKeyValue("queue", ORDERS_QUEUE)
+                .addKeyValue("messageId", message.getId())
+                .addKeyValue("type", message.getType())
+                .log("Order event processed");
     }
 
     private void handleError(EventMessage message) {
-        log.info("Handling error alert for: {}", message.getSource());
+        // Alerts are logged at WARN on every message, never sampled
+        log.atWarn()
+                .addKeyValue("queue", ERRORS_QUEUE)
+                .addKeyValue("messageId", message.getId())
+                .addKeyValue("type", message.getType())
+                .addKeyValue("source", message.getSource())
+                .addKeyValue("priority", message.getPriority())
+                .log("ERROR ALERT");
     }
 
     private void auditEvent(EventMessage message) {
-        log.info("Auditing event: {} from {}", message.getType(), message.getSource());
+        messageLog.at(log, ALL_QUEUE)
+                .addKeyValue("queue", ALL_QUEUE)
+                .addKeyValue("messageId", message.getId())
+                .addKeyValue("type", message.getType())
+                .addKeyValue("source", message.getSource())
+                .log("Event audited");
+    }
+
+    private void logDuplicate(String queue, EventMessage message) {
+        messageLog.at(log, Level.WARN, queue)
+                .addKeyValue("queue", queue)
+                .addKeyValue("messageId", message.getId())
+                .log("DUPLICATE event ignored");
+    }
+
+    private void logFailure(String queue, EventMessage message, Exception e) {
+        log.atError()
+                .addKeyValue("queue", queue)
+                .addKeyValue("messageId", message.getId())
+                .addKeyValue("error", e.getMessage())
+                .log("Error processing event");
     }
 }
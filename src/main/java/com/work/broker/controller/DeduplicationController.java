@@ -1,23 +1,43 @@
 package com.work.broker.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.work.broker.model.ProcessedMessagePage;
+import com.work.broker.repository.ProcessedMessageFilter;
 import com.work.broker.repository.ProcessedMessageRepository;
+import com.work.broker.service.DeduplicationCounters;
 import com.work.broker.service.MessageDeduplicationService;
+import com.work.broker.service.ProcessedMessageQueryService;
 
 import lombok.RequiredArgsConstructor;
+import tools.jackson.databind.json.JsonMapper;
 
 /**
  * REST Controller for monitoring and managing message deduplication.
+ *
+ * Message listings are keyset-paginated (limit + opaque cursor) or streamed
+ * as NDJSON; both accept status, messageType and from/to (processedAt) filters.
  */
 @RestController
 @RequestMapping("/api/deduplication")
@@ -26,39 +46,88 @@ public class DeduplicationController {
 
     private final MessageDeduplicationService deduplicationService;
     private final ProcessedMessageRepository repository;
+    private final ProcessedMessageQueryService queryService;
+    private final DeduplicationCounters counters;
+    private final JsonMapper jsonMapper;
+
+    @Value("${deduplication.query.stream-timeout:10m}")
+    private Duration streamTimeout;
 
     /**
-     * Get statistics about processed messages
+     * Get statistics about processed messages.
+     * Served from in-memory counters - no database query per call.
      */
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getStats() {
-        Map<String, Object> stats = new HashMap<>();
+        Map<String, Object> stats = new LinkedHashMap<>();
 
-        stats.put("totalProcessedMessages", repository.count());
-        stats.put("topicOrdersQueue", deduplicationService.getProcessedCount("topic.queue.orders"));
-        stats.put("topicErrorsQueue", deduplicationService.getProcessedCount("topic.queue.errors"));
-        stats.put("topicAllQueue", deduplicationService.getProcessedCount("topic.queue.all"));
-        stats.put("fanoutNotification1", deduplicationService.getProcessedCount("fanout.queue.notification1"));
-        stats.put("fanoutNotification2", deduplicationService.getProcessedCount("fanout.queue.notification2"));
-        stats.put("fanoutNotification3", deduplicationService.getProcessedCount("fanout.queue.notification3"));
+        stats.put("totalProcessedMessages", counters.getTotal());
+        stats.put("byStatus", counters.getCountsByStatus());
+        stats.put("queues", counters.getCountsByQueue());
+        stats.put("lastReconciledAt", counters.getLastReconciledAt());
+        stats.put("deduplicationKey", deduplicationService.getKeyStats());
 
         return ResponseEntity.ok(stats);
     }
 
     /**
-     * Get all processed messages
+     * Get processed messages, one page at a time
+     * Example: GET /api/deduplication/messages?limit=100&status=PROCESSED
+     * Next page: GET /api/deduplication/messages?limit=100&status=PROCESSED&cursor={nextCursor}
      */
     @GetMapping("/messages")
-    public ResponseEntity<?> getAllProcessedMessages() {
-        return ResponseEntity.ok(repository.findAll());
+    public ResponseEntity<ProcessedMessagePage> getAllProcessedMessages(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String messageType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ProcessedMessageFilter filter = new ProcessedMessageFilter(null, status, messageType, from, to);
+        return ResponseEntity.ok(queryService.findPage(filter, cursor, limit));
+    }
+
+    /**
+     * Stream all matching processed messages as NDJSON (one JSON object per line)
+     */
+    @GetMapping(value = "/stream/messages", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProcessedMessages(
+            WebRequest request,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String messageType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ndjson(request, new ProcessedMessageFilter(null, status, messageType, from, to));
     }
 
     /**
-     * Get processed messages for a specific queue
+     * Get processed messages for a specific queue, one page at a time
      */
     @GetMapping("/messages/{queueName}")
-    public ResponseEntity<?> getMessagesByQueue(@PathVariable String queueName) {
-        return ResponseEntity.ok(repository.findByQueueName(queueName));
+    public ResponseEntity<ProcessedMessagePage> getMessagesByQueue(
+            @PathVariable String queueName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String messageType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ProcessedMessageFilter filter = new ProcessedMessageFilter(queueName, status, messageType, from, to);
+        return ResponseEntity.ok(queryService.findPage(filter, cursor, limit));
+    }
+
+    /**
+     * Stream processed messages of a specific queue as NDJSON
+     */
+    @GetMapping(value = "/stream/messages/{queueName}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamMessagesByQueue(
+            WebRequest request,
+            @PathVariable String queueName,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String messageType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ndjson(request, new ProcessedMessageFilter(queueName, status, messageType, from, to));
     }
 
     /**
@@ -69,7 +138,7 @@ public class DeduplicationController {
         Map<String, Object> result = new HashMap<>();
         result.put("messageId", messageId);
         result.put("isDuplicate", deduplicationService.isDuplicate(messageId));
-        result.put("details", repository.findById(messageId).orElse(null));
+        result.put("details", repository.findByMessageId(messageId));
         return ResponseEntity.ok(result);
     }
 
@@ -93,4 +162,28 @@ public class DeduplicationController {
         result.put("olderThanDays", days);
         return ResponseEntity.ok(result);
     }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /**
+     * The export outlives the default async request timeout, so only these
+     * responses get deduplication.query.stream-timeout.
+     */
+    private ResponseEntity<StreamingResponseBody> ndjson(WebRequest request, ProcessedMessageFilter filter) {
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(streamTimeout.toMillis());
+        StreamingResponseBody body = out -> queryService.stream(filter, message -> {
+            try {
+                out.write(jsonMapper.writeValueAsBytes(message));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
 }
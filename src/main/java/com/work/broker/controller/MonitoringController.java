@@ -0,0 +1,105 @@
+package com.work.broker.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.work.broker.lifecycle.GracefulDrain;
+import com.work.broker.monitoring.ConnectionPoolMetrics;
+import com.work.broker.monitoring.QueueDepthMonitor;
+import com.work.broker.monitoring.StartupTimer;
+import com.work.broker.outbox.EventOutbox;
+import com.work.broker.producer.PublishRateLimiter;
+import com.work.broker.service.EventCoalescer;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * REST Controller exposing broker-side runtime metrics.
+ */
+@RestController
+@RequestMapping("/api/monitoring")
+@RequiredArgsConstructor
+public class MonitoringController {
+
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+    private final PublishRateLimiter rateLimiter;
+    private final EventCoalescer coalescer;
+    private final EventOutbox outbox;
+    private final StartupTimer startupTimer;
+    private final QueueDepthMonitor queueDepthMonitor;
+    private final GracefulDrain gracefulDrain;
+
+    /**
+     * Publisher and consumer connection pool utilisation and wait times
+     */
+    @GetMapping("/pools")
+    public ResponseEntity<Map<String, Object>> getPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("publisher", connectionPoolMetrics.getPublisherStats());
+        stats.put("consumer", connectionPoolMetrics.getConsumerStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Depth, consume rate, lag and drain forecast per queue
+     */
+    @GetMapping("/queues")
+    public ResponseEntity<Map<String, Object>> getQueueStats() {
+        return ResponseEntity.ok(queueDepthMonitor.getStats());
+    }
+
+    /**
+     * Publish rate limiter state: adaptive factors, queue depths and per-key counters
+     */
+    @GetMapping("/rate-limits")
+    public ResponseEntity<Map<String, Object>> getRateLimitStats() {
+        return ResponseEntity.ok(rateLimiter.getStats());
+    }
+
+    /**
+     * Consumer-side coalescing per queue: received, merged and processed events
+     */
+    @GetMapping("/coalescing")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCoalescingStats() {
+        return ResponseEntity.ok(coalescer.getStats());
+    }
+
+    /**
+     * Producer outbox: backlog, relayed messages and relay failures
+     */
+    @GetMapping("/outbox")
+    public ResponseEntity<Map<String, Object>> getOutboxStats() {
+        return ResponseEntity.ok(outbox.getStats());
+    }
+
+    /**
+     * Time from JVM start to ready and to the first consumed message
+     */
+    @GetMapping("/startup")
+    public ResponseEntity<Map<String, Object>> getStartupStats() {
+        return ResponseEntity.ok(startupTimer.getStats());
+    }
+
+    /**
+     * Handlers in flight and the report of the last drain
+     */
+    @GetMapping("/drain")
+    public ResponseEntity<Map<String, Object>> getDrainStats() {
+        return ResponseEntity.ok(gracefulDrain.getStats());
+    }
+
+    /**
+     * Stop consuming and drain now (e.g. from a preStop hook); consumers stay
+     * stopped until the instance restarts
+     */
+    @PostMapping("/drain")
+    public ResponseEntity<Map<String, Object>> drain() {
+        return ResponseEntity.ok(gracefulDrain.drain());
+    }
+}
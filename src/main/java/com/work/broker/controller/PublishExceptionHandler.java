@@ -0,0 +1,98 @@
+package com.work.broker.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.work.broker.producer.PublishBackpressureException;
+import com.work.broker.producer.PublishRateLimitedException;
+import com.work.broker.producer.UnroutableMessageException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maps producer-side publish and RPC failures to HTTP responses.
+ */
+@RestControllerAdvice
+@Slf4j
+public class PublishExceptionHandler {
+
+    /**
+     * Routing key matches no binding - the broker would silently drop it
+     */
+    @ExceptionHandler(UnroutableMessageException.class)
+    public ResponseEntity<Map<String, Object>> handleUnroutable(UnroutableMessageException e) {
+        log.warn("Rejected unroutable message: {}", e.getMessage());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", "UNROUTABLE");
+        body.put("routingKey", e.getRoutingKey());
+        body.put("message", e.getMessage());
+        return ResponseEntity.badRequest().body(body);
+    }
+
+    /**
+     * Reactive publish buffer is full - ask the client to retry shortly
+     */
+    @ExceptionHandler(PublishBackpressureException.class)
+    public ResponseEntity<Map<String, Object>> handleBackpressure(PublishBackpressureException e) {
+        log.warn("Rejected message under backpressure: {}", e.getMessage());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", "BACKPRESSURE");
+        body.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+    }
+
+    /**
+     * Exchange/routing key is over its (adaptive) publish rate
+     */
+    @ExceptionHandler(PublishRateLimitedException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimited(PublishRateLimitedException e) {
+        log.debug("Rejected message over rate limit: {}", e.getMessage());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", "RATE_LIMITED");
+        body.put("key", e.getKey());
+        body.put("retryAfterMillis", e.getRetryAfterMillis());
+        body.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf((e.getRetryAfterMillis() + 999) / 1000))
+                .body(body);
+    }
+
+    /**
+     * Broker did not confirm the publish in time (reactive endpoints)
+     */
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<Map<String, Object>> handleConfirmTimeout(TimeoutException e) {
+        log.warn("Publish confirm timed out: {}", e.getMessage());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", "CONFIRM_TIMEOUT");
+        body.put("message", "Broker did not confirm the message in time; it may or may not have been delivered");
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(body);
+    }
+
+    /**
+     * No reply to an RPC request within rabbitmq.rpc.timeout-ms
+     */
+    @ExceptionHandler(AmqpReplyTimeoutException.class)
+    public ResponseEntity<Map<String, Object>> handleReplyTimeout(AmqpReplyTimeoutException e) {
+        log.warn("RPC reply timed out: {}", e.getMessage());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", "REPLY_TIMEOUT");
+        body.put("message", "No reply in time; the request may or may not have been processed");
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(body);
+    }
+}
@@ -0,0 +1,79 @@
+package com.work.broker.controller;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.work.broker.model.EventMessage;
+import com.work.broker.producer.PublishResult;
+import com.work.broker.producer.ReactiveEventPublisher;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive alternative to TopicExchangeController and FanoutExchangeController.
+ *
+ * Endpoints return a Mono, so the servlet thread is released as soon as the
+ * message is buffered; the response is written when the broker confirms it.
+ * A nack from the broker is returned as 502 Bad Gateway.
+ *
+ * POST /api/reactive/topic/send/{routingKey}  - Publish to the topic exchange
+ * POST /api/reactive/fanout/broadcast         - Publish to the fanout exchange
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+public class ReactiveEventController {
+
+    private final ReactiveEventPublisher reactivePublisher;
+
+    /**
+     * Example: POST /api/reactive/topic/send/order.created
+     */
+    @PostMapping("/topic/send/{routingKey}")
+    public Mono<ResponseEntity<PublishResult>> sendWithRoutingKey(
+            @PathVariable String routingKey,
+            @RequestBody(required = false) String content) {
+
+        EventMessage message = EventMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .type(routingKey)
+                .content(content != null ? content : "Message for " + routingKey)
+                .timestamp(LocalDateTime.now())
+                .source("reactive-topic-controller")
+                .build();
+
+        return reactivePublisher.sendMessage(routingKey, message).map(this::toResponse);
+    }
+
+    /**
+     * Broadcast to ALL subscribers of the fanout exchange
+     */
+    @PostMapping("/fanout/broadcast")
+    public Mono<ResponseEntity<PublishResult>> broadcast(@RequestBody(required = false) String content) {
+        EventMessage message = EventMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .type("broadcast")
+                .content(content != null ? content : "Important system announcement!")
+                .timestamp(LocalDateTime.now())
+                .source("reactive-broadcast-service")
+                .build();
+
+        return reactivePublisher.broadcastMessage(message).map(this::toResponse);
+    }
+
+    private ResponseEntity<PublishResult> toResponse(PublishResult result) {
+        if (!result.acknowledged()) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,45 @@
+package com.work.broker.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.work.broker.benchmark.RpcLatencyBenchmark;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * REST Controller for the RPC latency benchmark (profile "benchmark").
+ *
+ * POST /api/rpc/benchmark - Round-trip latency at increasing concurrency
+ */
+@RestController
+@RequestMapping("/api/rpc")
+@Profile("benchmark")
+@RequiredArgsConstructor
+public class RpcBenchmarkController {
+
+    private final RpcLatencyBenchmark benchmark;
+
+    /**
+     * Example: POST /api/rpc/benchmark?requests=2000&concurrency=1,4,16,64
+     */
+    @PostMapping("/benchmark")
+    public ResponseEntity<Map<String, Object>> benchmark(
+            @RequestParam(defaultValue = "1000") int requests,
+            @RequestParam(defaultValue = "1,2,4,8,16,32,64") List<Integer> concurrency) throws InterruptedException {
+        return ResponseEntity.ok(benchmark.run(requests, concurrency));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,74 @@
+package com.work.broker.controller;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.work.broker.model.EventMessage;
+import com.work.broker.producer.RpcClient;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * REST Controller for request/reply over the broker.
+ *
+ * Calls return a CompletableFuture, so the servlet thread is released while
+ * the request waits for its reply. A reply timeout is returned as
+ * 504 Gateway Timeout (see PublishExceptionHandler).
+ *
+ * POST /api/rpc/call/{operation} - Send a request and wait for the reply
+ * GET  /api/rpc/stats            - Pending requests, replies, timeouts
+ *
+ * The latency benchmark is served by RpcBenchmarkController (profile "benchmark").
+ */
+@RestController
+@RequestMapping("/api/rpc")
+@RequiredArgsConstructor
+public class RpcController {
+
+    private final RpcClient rpcClient;
+
+    /**
+     * Example: POST /api/rpc/call/echo
+     */
+    @PostMapping("/call/{operation}")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> call(
+            @PathVariable String operation,
+            @RequestBody(required = false) String content) {
+
+        EventMessage request = EventMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .type(operation)
+                .content(content != null ? content : "Request for " + operation)
+                .timestamp(LocalDateTime.now())
+                .source("rpc-controller")
+                .build();
+
+        long sentAt = System.nanoTime();
+        return rpcClient.call(request).thenApply(reply -> {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("requestId", request.getId());
+            response.put("operation", operation);
+            response.put("replyType", reply.getType());
+            response.put("reply", reply.getContent());
+            response.put("roundTripMicros", TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentAt));
+            return ResponseEntity.ok(response);
+        });
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(rpcClient.getStats());
+    }
+}
@@ -0,0 +1,85 @@
+package com.work.broker.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.work.broker.model.SubscriptionRequest;
+import com.work.broker.service.DynamicSubscriptionService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * REST Controller for managing subscriptions at runtime.
+ *
+ * Example - attach a webhook subscriber to the fanout exchange:
+ * POST /api/subscriptions
+ * {"queueName":"fanout.queue.webhooks","exchangeType":"fanout","concurrency":2,"maxConcurrency":4}
+ *
+ * Example - consume every order event from a new queue:
+ * POST /api/subscriptions
+ * {"queueName":"topic.queue.order-audit","exchangeType":"topic","routingKey":"order.#"}
+ */
+@RestController
+@RequestMapping("/api/subscriptions")
+@RequiredArgsConstructor
+public class SubscriptionController {
+
+    private final DynamicSubscriptionService subscriptionService;
+
+    /**
+     * List subscriptions created at runtime
+     */
+    @GetMapping
+    public ResponseEntity<List<SubscriptionRequest>> getSubscriptions() {
+        return ResponseEntity.ok(subscriptionService.getSubscriptions());
+    }
+
+    /**
+     * Declare queue + binding and start a listener container
+     */
+    @PostMapping
+    public ResponseEntity<SubscriptionRequest> subscribe(@RequestBody SubscriptionRequest request) {
+        return ResponseEntity.ok(subscriptionService.subscribe(request));
+    }
+
+    /**
+     * Change consumer concurrency of a running subscription
+     */
+    @PutMapping("/{queueName}/concurrency")
+    public ResponseEntity<String> updateConcurrency(@PathVariable String queueName,
+                                                    @RequestParam int concurrency,
+                                                    @RequestParam int maxConcurrency) {
+        if (!subscriptionService.updateConcurrency(queueName, concurrency, maxConcurrency)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok("Concurrency of " + queueName + " set to " + concurrency + "-" + maxConcurrency);
+    }
+
+    /**
+     * Stop consuming and remove the binding (and the queue if deleteQueue=true)
+     */
+    @DeleteMapping("/{queueName}")
+    public ResponseEntity<String> unsubscribe(@PathVariable String queueName,
+                                              @RequestParam(defaultValue = "false") boolean deleteQueue) {
+        if (!subscriptionService.unsubscribe(queueName, deleteQueue)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok("Subscription " + queueName + " removed");
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -1,17 +1,29 @@
 package com.work.broker.controller;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.work.broker.model.EventMessage;
+import com.work.broker.producer.DelayedMessageScheduler;
+import com.work.broker.producer.ScheduledMessage;
 import com.work.broker.producer.TopicExchangeProducer;
+import com.work.broker.routing.RoutePrediction;
+import com.work.broker.routing.TopicRoutingTable;
 
 import lombok.RequiredArgsConstructor;
 
@@ -26,6 +38,9 @@ import lombok.RequiredArgsConstructor;
  * POST /api/topic/send/{routingKey}  - Send with custom routing key
  * POST /api/topic/order/created      - Matches "order.*" queue
  * POST /api/topic/system/error       - Matches "*.error" queue
+ * GET  /api/topic/route/{routingKey}  - Predict target queues without publishing
+ * GET  /api/topic/route/stats         - Publish counters and rates per binding
+ * POST /api/topic/schedule/{routingKey}?delayMs=60000 - Publish later
  */
 @RestController
 @RequestMapping("/api/topic")
@@ -33,10 +48,15 @@ import lombok.RequiredArgsConstructor;
 public class TopicExchangeController {
 
     private final TopicExchangeProducer topicProducer;
+    private final TopicRoutingTable routingTable;
+    private final DelayedMessageScheduler delayedScheduler;
 
     /**
      * Send message with custom routing key
      * Example: POST /api/topic/send/order.created
+     *
+     * Routing keys that match no binding are rejected with 400 Bad Request
+     * (see rabbitmq.topic.reject-unroutable).
      */
     @PostMapping("/send/{routingKey}")
     public ResponseEntity<String> sendWithRoutingKey(
@@ -51,9 +71,10 @@ public class TopicExchangeController {
                 .source("topic-controller")
                 .build();
 
-        topicProducer.sendMessage(routingKey, message);
+        RoutePrediction prediction = topicProducer.sendMessage(routingKey, message);
 
         return ResponseEntity.ok("Message sent with routing key: " + routingKey +
+                "Predicted queues: " + prediction.queues() +
                 "Routing behavior:" +
                 "- 'order.*' pattern -> ordersQueue" +
                 "- '*.error' pattern -> errorsQueue" +
@@ -86,11 +107,16 @@ public class TopicExchangeController {
     /**
      * Send order.updated event
      * Will be received by: ordersQueue (order.*) and allEventsQueue (#)
+     *
+     * The optional orderId becomes the message key, so bursts of updates for
+     * the same order can be coalesced by the orders consumer.
      */
     @PostMapping("/order/updated")
-    public ResponseEntity<String> sendOrderUpdated(@RequestBody(required = false) String content) {
+    public ResponseEntity<String> sendOrderUpdated(@RequestBody(required = false) String content,
+                                                   @RequestParam(required = false) String orderId) {
         EventMessage message = EventMessage.builder()
                 .id(UUID.randomUUID().toString())
+                .key(orderId)
                 .type("order.updated")
                 .content(content != null ? content : "Order has been updated")
                 .timestamp(LocalDateTime.now())
@@ -176,4 +202,93 @@ public class TopicExchangeController {
                 "Does NOT match: ordersQueue (order.*), errorsQueue (*.error)
                 """);
     }
+
+    /**
+     * Predict which queues a routing key reaches, without publishing.
+     * Example: GET /api/topic/route/order.payment.completed
+     */
+    @GetMapping("/route/{routingKey}")
+    public ResponseEntity<Map<String, Object>> predictRoute(@PathVariable String routingKey) {
+        RoutePrediction prediction = topicProducer.predictRoute(routingKey);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("routingKey", routingKey);
+        result.put("routable", prediction.isRoutable());
+        result.put("queues", prediction.queues());
+        result.put("bindings", prediction.bindings().stream().map(Object::toString).toList());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Publish totals and rates per topic binding
+     */
+    @GetMapping("/route/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getRouteStats() {
+        return ResponseEntity.ok(routingTable.getBindingStats());
+    }
+
+    /**
+     * Publish a message at a later time.
+     * Example: POST /api/topic/schedule/order.created?delayMs=60000
+     *          POST /api/topic/schedule/order.created?deliverAt=2025-01-01T10:00:00Z
+     */
+    @PostMapping("/schedule/{routingKey}")
+    public ResponseEntity<Map<String, Object>> scheduleMessage(
+            @PathVariable String routingKey,
+            @RequestParam(required = false) Long delayMs,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant deliverAt,
+            @RequestBody(required = false) String content) {
+        if ((delayMs == null) == (deliverAt == null)) {
+            throw new IllegalArgumentException("Exactly one of delayMs or deliverAt is required");
+        }
+
+        EventMessage message = EventMessage.builder()
+                .id(UUID.randomUUID().toString())
+                .type(routingKey)
+                .content(content != null ? content : "Scheduled message for " + routingKey)
+                .timestamp(LocalDateTime.now())
+                .source("topic-controller")
+                .build();
+
+        ScheduledMessage scheduled = topicProducer.scheduleMessage(routingKey, message,
+                deliverAt != null ? deliverAt : Instant.now().plusMillis(delayMs));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", scheduled.id());
+        result.put("routingKey", routingKey);
+        result.put("deliverAt", scheduled.deliverAt());
+        return ResponseEntity.accepted().body(result);
+    }
+
+    /**
+     * Pending scheduled message
+     */
+    @GetMapping("/schedule/{id}")
+    public ResponseEntity<ScheduledMessage> getScheduled(@PathVariable String id) {
+        ScheduledMessage scheduled = delayedScheduler.get(id);
+        return scheduled != null ? ResponseEntity.ok(scheduled) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Cancel a scheduled message that has not been published yet
+     */
+    @DeleteMapping("/schedule/{id}")
+    public ResponseEntity<String> cancelScheduled(@PathVariable String id) {
+        return topicProducer.cancelScheduled(id)
+                ? ResponseEntity.ok("Scheduled message " + id + " cancelled")
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Pending, published and cancelled scheduled messages
+     */
+    @GetMapping("/schedule/stats")
+    public ResponseEntity<Map<String, Object>> getScheduleStats() {
+        return ResponseEntity.ok(delayedScheduler.getStats());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
 }
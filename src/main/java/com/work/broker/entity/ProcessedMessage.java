@@ -2,35 +2,59 @@ package com.work.broker.entity;
 
 import java.time.LocalDateTime;
 
+import org.springframework.data.domain.Persistable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
 import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * Entity to track processed messages for idempotency.
  * Prevents duplicate message processing in RabbitMQ consumers.
+ *
+ * Indexes follow the keyset order (processedAt, messageId, queueName) used by
+ * the paginated queries, prefixed by each supported filter column.
+ *
+ * Implements Persistable so that saving a freshly built record is a plain
+ * INSERT: with an assigned ID, Spring Data would otherwise merge() it and
+ * Hibernate would SELECT the row first to decide between insert and update.
  */
 @Entity
+@IdClass(ProcessedMessageId.class)
 @Table(name = "processed_messages", indexes = {
-    @Index(name = "idx_processed_at", columnList = "processedAt"),
-    @Index(name = "idx_queue_name", columnList = "queueName")
+    @Index(name = "idx_processed_at", columnList = "processedAt, messageId, queueName"),
+    @Index(name = "idx_queue_processed_at", columnList = "queueName, processedAt, messageId"),
+    @Index(name = "idx_status_processed_at", columnList = "status, processedAt, messageId, queueName"),
+    @Index(name = "idx_type_processed_at", columnList = "messageType, processedAt, messageId, queueName")
 })
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class ProcessedMessage {
+public class ProcessedMessage implements Persistable<ProcessedMessageId> {
 
     @Id
     @Column(length = 100)
     private String messageId;
 
+    @Id
     @Column(nullable = false, length = 100)
     private String queueName;
 
@@ -42,4 +66,31 @@ public class ProcessedMessage {
 
     @Column(length = 500)
     private String messageType;
+
+    /** Set once the row is known to exist (loaded or inserted) */
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean persisted = false;
+
+    @Override
+    @JsonIgnore
+    public ProcessedMessageId getId() {
+        return new ProcessedMessageId(messageId, queueName);
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
 }
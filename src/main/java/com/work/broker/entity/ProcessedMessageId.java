@@ -0,0 +1,22 @@
+package com.work.broker.entity;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Primary key of ProcessedMessage.
+ *
+ * A fanout message reaches every bound queue with the same ID, and each
+ * queue tracks it independently, so the key is (messageId, queueName).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedMessageId implements Serializable {
+
+    private String messageId;
+    private String queueName;
+}
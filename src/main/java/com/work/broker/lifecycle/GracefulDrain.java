@@ -0,0 +1,195 @@
+package com.work.broker.lifecycle;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.work.broker.outbox.EventOutbox;
+import com.work.broker.producer.ReactiveEventPublisher;
+import com.work.broker.service.DeduplicationWriteBuffer;
+import com.work.broker.service.DynamicSubscriptionService;
+import com.work.broker.service.MessageDeduplicationService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coordinated drain of the consumers before the context shuts down.
+ *
+ * Runs on ContextClosedEvent, which is published before any lifecycle bean
+ * is stopped, so connections, the write buffer and the outbox are all still
+ * up. Within shutdown.drain.timeout:
+ * 1. stop consuming: every listener container (annotated and dynamic) is
+ *    stopped with forceStop, so prefetched messages go back to the broker
+ *    instead of being handled;
+ * 2. wait for the handlers in flight (InFlightMessages);
+ * 3. release the deduplication claims of the handlers still running at the
+ *    deadline - their messages are requeued when the channel closes, and
+ *    without the release the redelivery would be dropped as a duplicate
+ *    although the side effect never completed;
+ * 4. flush the batched deduplication writes;
+ * 5. wait for the outstanding publisher confirms of the reactive publisher.
+ *
+ * The containers close their channels only after the drain
+ * (shutdownTimeout = timeout + 1s), so unacknowledged messages are requeued
+ * after their claims are gone. An abandoned handler that still completes
+ * before the JVM exits is processed twice: at-least-once, as before.
+ *
+ * Also callable from POST /api/monitoring/drain (e.g. a preStop hook); the
+ * instance then stops consuming until it is restarted.
+ */
+@Component
+@Slf4j
+public class GracefulDrain {
+
+    private static final long CHANNEL_CLOSE_GRACE_MS = 1000;
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final DynamicSubscriptionService subscriptionService;
+    private final InFlightMessages inFlightMessages;
+    private final MessageDeduplicationService deduplicationService;
+    private final ObjectProvider<DeduplicationWriteBuffer> writeBuffer;
+    private final ReactiveEventPublisher reactivePublisher;
+    private final EventOutbox outbox;
+
+    @Value("${shutdown.drain.enabled:true}")
+    private boolean enabled;
+
+    @Value("${shutdown.drain.timeout:20s}")
+    private Duration timeout;
+
+    private volatile Map<String, Object> report;
+
+    public GracefulDrain(RabbitListenerEndpointRegistry listenerRegistry,
+                         DynamicSubscriptionService subscriptionService,
+                         InFlightMessages inFlightMessages,
+                         MessageDeduplicationService deduplicationService,
+                         ObjectProvider<DeduplicationWriteBuffer> writeBuffer,
+                         ReactiveEventPublisher reactivePublisher,
+                         EventOutbox outbox) {
+        this.listenerRegistry = listenerRegistry;
+        this.subscriptionService = subscriptionService;
+        this.inFlightMessages = inFlightMessages;
+        this.deduplicationService = deduplicationService;
+        this.writeBuffer = writeBuffer;
+        this.reactivePublisher = reactivePublisher;
+        this.outbox = outbox;
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onClose() {
+        if (enabled) {
+            drain();
+        }
+    }
+
+    /**
+     * Drain once; later calls return the first report.
+     */
+    public synchronized Map<String, Object> drain() {
+        if (report != null) {
+            return report;
+        }
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        int inFlightAtStart = inFlightMessages.size();
+        log.info("Draining consumers (timeout {} ms, {} handlers in flight)", timeout.toMillis(), inFlightAtStart);
+
+        List<SimpleMessageListenerContainer> containers = containers();
+        CountDownLatch stopped = new CountDownLatch(containers.size());
+        for (SimpleMessageListenerContainer container : containers) {
+            container.setForceStop(true);
+            container.setShutdownTimeout(timeout.toMillis() + CHANNEL_CLOSE_GRACE_MS);
+            container.stop(stopped::countDown);
+        }
+
+        boolean idle = false;
+        int unconfirmed = 0;
+        try {
+            idle = inFlightMessages.awaitIdle(deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long handlersMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        List<InFlightMessages.Delivery> abandoned = idle ? List.of() : inFlightMessages.snapshot();
+        int released = 0;
+        for (InFlightMessages.Delivery delivery : abandoned) {
+            for (InFlightMessages.Claim claim : delivery.getClaims()) {
+                try {
+                    deduplicationService.allowReprocess(claim);
+                    released++;
+                } catch (RuntimeException e) {
+                    log.warn("Could not release claim of abandoned message {} on {}: {}",
+                            claim.messageId(), claim.queueName(), e.getMessage());
+                }
+            }
+            log.warn("Abandoned handler on {} after {} ms - {} claims released",
+                    delivery.getQueue(), delivery.getRunningMillis(), delivery.getClaims().size());
+        }
+
+        DeduplicationWriteBuffer buffer = writeBuffer.getIfAvailable();
+        int flushed = buffer != null && buffer.isEnabled() ? buffer.flush() : 0;
+
+        try {
+            unconfirmed = reactivePublisher.awaitOutstanding(deadline);
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            stopped.await(remaining + TimeUnit.MILLISECONDS.toNanos(CHANNEL_CLOSE_GRACE_MS), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("drainedAt", Instant.now());
+        result.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        result.put("handlersMs", handlersMs);
+        result.put("containers", containers.size());
+        result.put("containersStopped", containers.size() - stopped.getCount());
+        result.put("inFlightAtStart", inFlightAtStart);
+        result.put("abandoned", abandoned.size());
+        result.put("claimsReleased", released);
+        result.put("dedupWritesFlushed", flushed);
+        result.put("unconfirmedPublishes", unconfirmed);
+        result.put("outboxBacklog", outbox.getStats().get("backlog"));
+        report = result;
+
+        if (abandoned.isEmpty() && unconfirmed == 0) {
+            log.info("Drain completed: {}", result);
+        } else {
+            log.warn("Drain timed out: {}", result);
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("timeoutMs", timeout.toMillis());
+        stats.put("inFlight", inFlightMessages.size());
+        stats.put("lastDrain", report);
+        return stats;
+    }
+
+    private List<SimpleMessageListenerContainer> containers() {
+        List<SimpleMessageListenerContainer> containers = new ArrayList<>(subscriptionService.getContainers());
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (container instanceof SimpleMessageListenerContainer simple) {
+                containers.add(simple);
+            }
+        }
+        return containers;
+    }
+}
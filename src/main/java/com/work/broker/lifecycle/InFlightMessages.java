@@ -0,0 +1,139 @@
+package com.work.broker.lifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deliveries currently inside a listener, and the deduplication claims each
+ * of them made (recordClaim, called by MessageDeduplicationService on the
+ * listener thread).
+ *
+ * GracefulDrain waits for this set to empty on shutdown; the deliveries
+ * still running at its deadline are abandoned and their claims released.
+ *
+ * Registered as advice on the listener container factories (see RabbitMQConfig).
+ */
+@Component
+public class InFlightMessages implements MethodInterceptor {
+
+    private final ThreadLocal<Delivery> current = new ThreadLocal<>();
+    private final Set<Delivery> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Delivery delivery = new Delivery(consumerQueue(invocation.getArguments()), System.nanoTime());
+        inFlight.add(delivery);
+        current.set(delivery);
+        try {
+            return invocation.proceed();
+        } finally {
+            current.remove();
+            inFlight.remove(delivery);
+        }
+    }
+
+    /**
+     * Attach a deduplication claim to the delivery being handled on this thread.
+     * No-op outside a listener invocation.
+     */
+    public void recordClaim(String messageId, String queueName, String fingerprint) {
+        Delivery delivery = current.get();
+        if (delivery != null) {
+            delivery.claims.add(new Claim(messageId, queueName, fingerprint));
+        }
+    }
+
+    /**
+     * The claim of this message made by the delivery being handled on this
+     * thread, or null.
+     */
+    public Claim currentClaim(String messageId, String queueName) {
+        Delivery delivery = current.get();
+        if (delivery == null) {
+            return null;
+        }
+        for (Claim claim : delivery.claims) {
+            if (claim.messageId().equals(messageId) && claim.queueName().equals(queueName)) {
+                return claim;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * Wait until no delivery is in flight.
+     *
+     * @return true if the set emptied before the deadline (System.nanoTime())
+     */
+    public boolean awaitIdle(long deadlineNanos) throws InterruptedException {
+        while (!inFlight.isEmpty()) {
+            if (System.nanoTime() - deadlineNanos >= 0) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * The deliveries still in flight. Their handlers keep running; the caller
+     * decides what to do with their claims.
+     */
+    public List<Delivery> snapshot() {
+        return new ArrayList<>(inFlight);
+    }
+
+    /**
+     * Listener containers invoke the advice chain with (channel, message) or
+     * (channel, batch of messages).
+     */
+    private static String consumerQueue(Object[] arguments) {
+        Object data = arguments.length > 1 ? arguments[1] : null;
+        if (data instanceof List<?> batch && !batch.isEmpty()) {
+            data = batch.get(0);
+        }
+        return data instanceof Message message ? message.getMessageProperties().getConsumerQueue() : null;
+    }
+
+    /**
+     * @param fingerprint content fingerprint claimed with the message (deduplication.key=fingerprint), or null
+     */
+    public record Claim(String messageId, String queueName, String fingerprint) {
+    }
+
+    public static final class Delivery {
+        private final String queue;
+        private final long startNanos;
+        private final List<Claim> claims = new CopyOnWriteArrayList<>();
+
+        private Delivery(String queue, long startNanos) {
+            this.queue = queue;
+            this.startNanos = startNanos;
+        }
+
+        public String getQueue() {
+            return queue;
+        }
+
+        public long getRunningMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+
+        public List<Claim> getClaims() {
+            return List.copyOf(claims);
+        }
+    }
+}
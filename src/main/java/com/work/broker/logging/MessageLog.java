@@ -0,0 +1,95 @@
+package com.work.broker.logging;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entry point for per-message logs (one line per consumed or published message).
+ *
+ * Returns an SLF4J fluent builder, so callers attach fields with
+ * addKeyValue() instead of formatting the whole message:
+ *
+ * <pre>
+ * messageLog.at(log, queue)
+ *         .addKeyValue("queue", queue)
+ *         .addKeyValue("messageId", message.getId())
+ *         .log("Processing event");
+ * </pre>
+ *
+ * Per-message logs use message-logging.level (DEBUG by default). If that
+ * level is disabled, or the message is not in the sample, the no-op builder
+ * is returned: nothing is allocated or formatted and the key-value calls
+ * are free.
+ *
+ * Sampling is per queue (or exchange): 1 in every
+ * message-logging.sample-every.&lt;name&gt; messages is logged, falling back to
+ * message-logging.sample-every. Errors should be logged directly, not through
+ * this class.
+ */
+@Component
+public class MessageLog {
+
+    private static final String SAMPLE_EVERY_PREFIX = "message-logging.sample-every.";
+
+    private final Environment environment;
+    private final Level level;
+    private final long defaultSampleEvery;
+
+    private final Map<String, Sampler> samplers = new ConcurrentHashMap<>();
+
+    public MessageLog(Environment environment,
+                      @Value("${message-logging.level:DEBUG}") Level level,
+                      @Value("${message-logging.sample-every:1}") long defaultSampleEvery) {
+        this.environment = environment;
+        this.level = level;
+        this.defaultSampleEvery = defaultSampleEvery;
+    }
+
+    /**
+     * Builder for a per-message log line at the configured level.
+     */
+    public LoggingEventBuilder at(Logger logger, String name) {
+        return at(logger, level, name);
+    }
+
+    /**
+     * Builder for a per-message log line at an explicit level (e.g. WARN for duplicates).
+     */
+    public LoggingEventBuilder at(Logger logger, Level level, String name) {
+        if (!logger.isEnabledForLevel(level) || !sampler(name).sample()) {
+            return NOPLoggingEventBuilder.singleton();
+        }
+        return logger.atLevel(level);
+    }
+
+    private Sampler sampler(String name) {
+        Sampler sampler = samplers.get(name);
+        if (sampler == null) {
+            long every = environment.getProperty(SAMPLE_EVERY_PREFIX + name, Long.class, defaultSampleEvery);
+            sampler = samplers.computeIfAbsent(name, n -> new Sampler(every));
+        }
+        return sampler;
+    }
+
+    private static final class Sampler {
+        private final long every;
+        private final AtomicLong counter = new AtomicLong();
+
+        private Sampler(long every) {
+            this.every = Math.max(1, every);
+        }
+
+        private boolean sample() {
+            return every == 1 || counter.getAndIncrement() % every == 0;
+        }
+    }
+}
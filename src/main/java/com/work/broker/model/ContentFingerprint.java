@@ -0,0 +1,34 @@
+package com.work.broker.model;
+
+import java.nio.charset.StandardCharsets;
+
+import com.work.broker.support.Murmur3;
+
+/**
+ * Content fingerprint of an EventMessage: Murmur3 128-bit of type, key,
+ * source and content. The ID and timestamp are left out, so a client that
+ * retries the same request under a new ID produces the same fingerprint; the
+ * key is included, so the same content for two entities is not a duplicate.
+ *
+ * Producers send it in the x-content-fingerprint header, so consumers
+ * never hash the payload again.
+ */
+public final class ContentFingerprint {
+
+    public static final String HEADER = "x-content-fingerprint";
+
+    private ContentFingerprint() {
+    }
+
+    public static String of(EventMessage message) {
+        String input = nullToEmpty(message.getType()) + '\0'
+                + nullToEmpty(message.getKey()) + '\0'
+                + nullToEmpty(message.getSource()) + '\0'
+                + nullToEmpty(message.getContent());
+        return Murmur3.hex(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
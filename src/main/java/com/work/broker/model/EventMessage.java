@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @Builder
@@ -15,8 +16,23 @@ import lombok.NoArgsConstructor;
 public class EventMessage implements Serializable {
 
     private String id;
+
+    /**
+     * Business key of the entity the event is about (e.g. order ID).
+     * Events with the same key can be coalesced (see EventCoalescer).
+     */
+    private String key;
+
     private String type;
+    /** Payload - excluded from toString so it never ends up in logs */
+    @ToString.Exclude
     private String content;
     private LocalDateTime timestamp;
     private String source;
+
+    /**
+     * AMQP priority (0 = lowest). If null, TopicExchangeProducer derives it
+     * from the routing key (see MessagePriorityResolver).
+     */
+    private Integer priority;
 }
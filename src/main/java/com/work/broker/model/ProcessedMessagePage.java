@@ -0,0 +1,13 @@
+package com.work.broker.model;
+
+import java.util.List;
+
+import com.work.broker.entity.ProcessedMessage;
+
+/**
+ * One keyset page of processed messages.
+ *
+ * @param nextCursor token for the following page, or null when this is the last one
+ */
+public record ProcessedMessagePage(List<ProcessedMessage> items, int limit, String nextCursor) {
+}
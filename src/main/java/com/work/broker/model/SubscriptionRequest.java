@@ -0,0 +1,35 @@
+package com.work.broker.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Runtime subscription: a queue bound to one of the exchanges
+ * plus the listener container settings used to consume it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriptionRequest {
+
+    /** Queue to declare (e.g. "fanout.queue.webhooks") */
+    private String queueName;
+
+    /** "topic" or "fanout" */
+    private String exchangeType;
+
+    /** Binding pattern for topic subscriptions (e.g. "order.#"); ignored for fanout */
+    private String routingKey;
+
+    @Builder.Default
+    private int concurrency = 1;
+
+    @Builder.Default
+    private int maxConcurrency = 1;
+
+    @Builder.Default
+    private boolean deduplication = true;
+}
@@ -0,0 +1,104 @@
+package com.work.broker.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory.CacheMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Utilisation and wait-time metrics for the publisher and consumer
+ * connection pools.
+ *
+ * Publisher channel checkouts are timed by MeteredConnectionFactory, which
+ * the RabbitTemplate publishes through. Channels in use are the publisher
+ * factory's open channels (counted by a ChannelListener) minus the idle ones
+ * in its cache. The cache state of both factories comes from
+ * CachingConnectionFactory.getCacheProperties().
+ */
+@Component
+public class ConnectionPoolMetrics {
+
+    private final CachingConnectionFactory publisherConnectionFactory;
+    private final CachingConnectionFactory consumerConnectionFactory;
+
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final AtomicInteger openChannels = new AtomicInteger();
+
+    public ConnectionPoolMetrics(@Qualifier("publisherConnectionFactory") CachingConnectionFactory publisherConnectionFactory,
+                                 @Qualifier("consumerConnectionFactory") CachingConnectionFactory consumerConnectionFactory) {
+        this.publisherConnectionFactory = publisherConnectionFactory;
+        this.consumerConnectionFactory = consumerConnectionFactory;
+        // Channel shutdown listeners also fire when the channel's connection closes
+        publisherConnectionFactory.addChannelListener((channel, transactional) -> {
+            openChannels.incrementAndGet();
+            channel.addShutdownListener(cause -> openChannels.decrementAndGet());
+        });
+    }
+
+    public void channelAcquired(long waitNanos) {
+        checkouts.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulate(waitNanos);
+    }
+
+    public Map<String, Object> getPublisherStats() {
+        long count = checkouts.sum();
+        Properties cache = publisherConnectionFactory.getCacheProperties();
+        int open = openChannels.get();
+        int inUse = Math.max(0, open - idleChannels(cache));
+        int capacity = publisherConnectionFactory.getChannelCacheSize()
+                * (publisherConnectionFactory.getCacheMode() == CacheMode.CONNECTION
+                        ? publisherConnectionFactory.getConnectionCacheSize() : 1);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cacheMode", publisherConnectionFactory.getCacheMode());
+        stats.put("channelCapacity", capacity);
+        stats.put("openChannels", open);
+        stats.put("channelsInUse", inUse);
+        stats.put("utilisation", capacity > 0 ? (double) inUse / capacity : 0.0);
+        stats.put("checkouts", count);
+        stats.put("avgWaitMicros", count > 0 ? totalWaitNanos.sum() / count / 1_000 : 0);
+        stats.put("maxWaitMicros", maxWaitNanos.get() / 1_000);
+        stats.put("cache", toMap(cache));
+        return stats;
+    }
+
+    /**
+     * Idle channels across the cache: idleChannelsTx/idleChannelsNotTx in
+     * CHANNEL mode, one pair per connection (suffixed with its local port)
+     * in CONNECTION mode.
+     */
+    private int idleChannels(Properties cache) {
+        int idle = 0;
+        for (String name : cache.stringPropertyNames()) {
+            if (name.startsWith("idleChannels") && !name.contains("HighWater")) {
+                idle += Integer.parseInt(cache.getProperty(name));
+            }
+        }
+        return idle;
+    }
+
+    public Map<String, Object> getConsumerStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cacheMode", consumerConnectionFactory.getCacheMode());
+        stats.put("channelCacheSize", consumerConnectionFactory.getChannelCacheSize());
+        stats.put("cache", toMap(consumerConnectionFactory.getCacheProperties()));
+        return stats;
+    }
+
+    private Map<String, String> toMap(Properties properties) {
+        Map<String, String> map = new LinkedHashMap<>();
+        properties.stringPropertyNames().stream().sorted()
+                .forEach(name -> map.put(name, properties.getProperty(name)));
+        return map;
+    }
+}
@@ -0,0 +1,303 @@
+package com.work.broker.monitoring;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.work.broker.producer.PublishRateLimiter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumer lag per queue: broker-side depth and consumer count, polled with
+ * a passive declare (AmqpAdmin.getQueueInfo), combined with the consume rate
+ * measured by this instance's listeners.
+ *
+ * Per queue, every monitoring.queues.poll-ms:
+ * - consumeRate: messages/s acked by the local listeners (EWMA)
+ * - trend:       depth change in messages/s (EWMA); negative = draining
+ * - lagSeconds:  depth / consumeRate - how far behind the local consumers are
+ * - drainSeconds: depth / -trend - forecast until the queue is empty,
+ *                 null while it is not shrinking
+ *
+ * The same values are registered as gauges tagged by queue
+ * (rabbitmq.queue.depth, .consume.rate, .lag, .drain; NaN while unknown)
+ * so they reach the metrics export, and removed when a queue is unwatched.
+ *
+ * The depths feed PublishRateLimiter. With monitoring.queues.scaling.enabled=true (off by default)
+ * the forecast also drives the listener containers: while a non-empty queue
+ * is not forecast to drain within scale-up-drain-seconds, its container gets
+ * one more consumer per poll (up to max-consumers and the container's own
+ * max); once the queue is empty it steps back to where it started.
+ *
+ * Registered as advice on the listener container factories to count
+ * consumed messages (see RabbitMQConfig).
+ */
+@Component
+@Slf4j
+public class QueueDepthMonitor implements MethodInterceptor {
+
+    private static final double EWMA_ALPHA = 0.3;
+
+    private final AmqpAdmin amqpAdmin;
+    private final PublishRateLimiter rateLimiter;
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, QueueState> queues = new ConcurrentHashMap<>();
+    private final Map<String, SimpleMessageListenerContainer> dynamicContainers = new ConcurrentHashMap<>();
+
+    @Value("${monitoring.queues.scaling.enabled:false}")
+    private boolean scalingEnabled;
+
+    @Value("${monitoring.queues.scaling.max-consumers:4}")
+    private int maxConsumers;
+
+    @Value("${monitoring.queues.scaling.scale-up-drain-seconds:60}")
+    private double scaleUpDrainSeconds;
+
+    public QueueDepthMonitor(AmqpAdmin amqpAdmin,
+                             PublishRateLimiter rateLimiter,
+                             RabbitListenerEndpointRegistry listenerRegistry,
+                             MeterRegistry meterRegistry,
+                             List<Queue> declaredQueues) {
+        this.amqpAdmin = amqpAdmin;
+        this.rateLimiter = rateLimiter;
+        this.listenerRegistry = listenerRegistry;
+        this.meterRegistry = meterRegistry;
+        declaredQueues.forEach(queue -> queues.put(queue.getName(), newState(queue.getName())));
+    }
+
+    /**
+     * Monitor a queue declared at runtime, consumed by the given container.
+     * Calling it again resets the scaling baseline to the container's current consumers.
+     */
+    public void watch(String queue, SimpleMessageListenerContainer container) {
+        queues.computeIfAbsent(queue, this::newState).resetScaling();
+        dynamicContainers.put(queue, container);
+    }
+
+    public void unwatch(String queue) {
+        QueueState state = queues.remove(queue);
+        if (state != null) {
+            state.meters.forEach(meterRegistry::remove);
+        }
+        dynamicContainers.remove(queue);
+    }
+
+    private QueueState newState(String queue) {
+        QueueState state = new QueueState();
+        state.meters = List.of(
+                gauge("rabbitmq.queue.depth", queue, state, s -> s.depth < 0 ? Double.NaN : s.depth,
+                        "messages", "Messages ready in the queue"),
+                gauge("rabbitmq.queue.consume.rate", queue, state, s -> s.consumeRate,
+                        "messages/s", "Messages acked per second by this instance's listeners"),
+                gauge("rabbitmq.queue.lag", queue, state, s -> orNaN(s.lagSeconds()),
+                        "seconds", "Depth divided by the local consume rate"),
+                gauge("rabbitmq.queue.drain", queue, state, s -> orNaN(s.drainSeconds()),
+                        "seconds", "Forecast until the queue is empty"));
+        return state;
+    }
+
+    private Meter gauge(String name, String queue, QueueState state, ToDoubleFunction<QueueState> value,
+                        String unit, String description) {
+        return Gauge.builder(name, state, value)
+                .tag("queue", queue)
+                .baseUnit(unit)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    private static double orNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        Object data = invocation.getArguments().length > 1 ? invocation.getArguments()[1] : null;
+        if (data instanceof Message message) {
+            count(message, 1);
+        } else if (data instanceof List<?> batch && !batch.isEmpty() && batch.get(0) instanceof Message first) {
+            count(first, batch.size());
+        }
+        return result;
+    }
+
+    private void count(Message message, int messages) {
+        QueueState state = queues.get(message.getMessageProperties().getConsumerQueue());
+        if (state != null) {
+            state.consumed.add(messages);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${monitoring.queues.poll-ms:5000}")
+    public void poll() {
+        Map<String, SimpleMessageListenerContainer> containers = containersByQueue();
+        for (Map.Entry<String, QueueState> entry : queues.entrySet()) {
+            String queue = entry.getKey();
+            QueueState state = entry.getValue();
+            QueueInformation info;
+            try {
+                info = amqpAdmin.getQueueInfo(queue);
+            } catch (RuntimeException e) {
+                log.debug("Could not read depth of queue {}: {}", queue, e.getMessage());
+                continue;
+            }
+            if (info == null) {
+                continue;
+            }
+            state.update(info.getMessageCount(), info.getConsumerCount(), System.nanoTime());
+            rateLimiter.updateQueueDepth(queue, info.getMessageCount());
+            if (scalingEnabled) {
+                scale(queue, state, containers.get(queue));
+            }
+        }
+    }
+
+    private void scale(String queue, QueueState state, SimpleMessageListenerContainer container) {
+        if (container == null || !container.isRunning()) {
+            return;
+        }
+        if (state.baseConsumers == 0) {
+            state.baseConsumers = Math.max(1, container.getActiveConsumerCount());
+            state.targetConsumers = state.baseConsumers;
+        }
+
+        int current = state.targetConsumers;
+        int target = current;
+        Double drainSeconds = state.drainSeconds();
+        if (state.depth > 0 && (drainSeconds == null || drainSeconds > scaleUpDrainSeconds)) {
+            target = Math.min(current + 1, Math.max(maxConsumers, state.baseConsumers));
+        } else if (state.depth == 0) {
+            target = Math.max(current - 1, state.baseConsumers);
+        }
+        if (target == current) {
+            return;
+        }
+
+        try {
+            container.setConcurrentConsumers(target);
+        } catch (IllegalArgumentException e) {
+            // Above the container's own maxConcurrentConsumers
+            return;
+        }
+        state.targetConsumers = target;
+        log.info("Queue {} consumers {} -> {} (depth {}, trend {} msg/s)",
+                queue, current, target, state.depth, String.format("%.1f", state.trend));
+    }
+
+    private Map<String, SimpleMessageListenerContainer> containersByQueue() {
+        Map<String, SimpleMessageListenerContainer> containers = new HashMap<>(dynamicContainers);
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (container instanceof SimpleMessageListenerContainer simple) {
+                for (String queue : simple.getQueueNames()) {
+                    containers.putIfAbsent(queue, simple);
+                }
+            }
+        }
+        return containers;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        queues.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> stats.put(entry.getKey(), entry.getValue().toMap()));
+        return stats;
+    }
+
+    private static final class QueueState {
+        private final LongAdder consumed = new LongAdder();
+        private long lastConsumed;
+        private long lastPollNanos;
+        private volatile Instant updatedAt;
+        private volatile long depth = -1;
+        private volatile long consumers = -1;
+        private volatile double consumeRate;
+        private volatile double trend;
+        private volatile int baseConsumers;
+        private volatile int targetConsumers;
+        private List<Meter> meters = List.of();
+
+        private synchronized void update(long newDepth, long newConsumers, long now) {
+            long total = consumed.sum();
+            if (lastPollNanos != 0) {
+                double seconds = (now - lastPollNanos) / 1_000_000_000.0;
+                consumeRate = ewma(consumeRate, (total - lastConsumed) / seconds);
+                trend = ewma(trend, (newDepth - depth) / seconds);
+            }
+            lastConsumed = total;
+            lastPollNanos = now;
+            depth = newDepth;
+            consumers = newConsumers;
+            updatedAt = Instant.now();
+        }
+
+        private void resetScaling() {
+            baseConsumers = 0;
+            targetConsumers = 0;
+        }
+
+        private Double lagSeconds() {
+            return depth > 0 && consumeRate > 0 ? depth / consumeRate : null;
+        }
+
+        private Double drainSeconds() {
+            return depth > 0 && trend < 0 ? depth / -trend : null;
+        }
+
+        private String status() {
+            if (depth < 0) {
+                return "unknown";
+            }
+            if (depth == 0) {
+                return "caught-up";
+            }
+            return trend < 0 ? "draining" : trend > 0 ? "growing" : "stable";
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("status", status());
+            map.put("depth", depth < 0 ? null : depth);
+            map.put("brokerConsumers", consumers < 0 ? null : consumers);
+            map.put("listenerConsumers", targetConsumers > 0 ? targetConsumers : null);
+            map.put("consumeRatePerSecond", round(consumeRate));
+            map.put("trendPerSecond", round(trend));
+            map.put("lagSeconds", round(lagSeconds()));
+            map.put("drainSeconds", round(drainSeconds()));
+            map.put("updatedAt", updatedAt);
+            return map;
+        }
+
+        private static double ewma(double average, double sample) {
+            return average + EWMA_ALPHA * (sample - average);
+        }
+
+        private static Double round(Double value) {
+            return value == null ? null : Math.round(value * 10) / 10.0;
+        }
+    }
+}
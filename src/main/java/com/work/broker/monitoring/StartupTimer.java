@@ -0,0 +1,104 @@
+package com.work.broker.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Startup timings, measured from the JVM start:
+ * - ready:         the application context is refreshed and ApplicationReadyEvent fired
+ * - first message: the first listener invocation on any container completed
+ *
+ * Registered as advice on the listener container factories (see
+ * RabbitMQConfig). After the first message the advice is a single volatile
+ * read.
+ *
+ * With startup.exit-after-first-message=true the application exits once the
+ * first message is processed, so repeated runs can be timed from a script.
+ */
+@Component
+@Slf4j
+public class StartupTimer implements MethodInterceptor {
+
+    private final ConfigurableApplicationContext applicationContext;
+    private final boolean exitAfterFirstMessage;
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private volatile long readyMillis = -1;
+    private volatile long firstMessageMillis = -1;
+    private volatile String firstMessageQueue;
+
+    public StartupTimer(ConfigurableApplicationContext applicationContext,
+                        @Value("${startup.exit-after-first-message:false}") boolean exitAfterFirstMessage) {
+        this.applicationContext = applicationContext;
+        this.exitAfterFirstMessage = exitAfterFirstMessage;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        readyMillis = System.currentTimeMillis() - jvmStartMillis;
+        log.info("Ready {} ms after JVM start (aot={}, profiles={})",
+                readyMillis, AotDetector.useGeneratedArtifacts(),
+                List.of(applicationContext.getEnvironment().getActiveProfiles()));
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (firstMessageMillis < 0) {
+            recordFirstMessage(invocation.getArguments());
+        }
+        return result;
+    }
+
+    private synchronized void recordFirstMessage(Object[] arguments) {
+        if (firstMessageMillis >= 0) {
+            return;
+        }
+        firstMessageQueue = consumerQueue(arguments);
+        firstMessageMillis = System.currentTimeMillis() - jvmStartMillis;
+        log.info("First message consumed from {} {} ms after JVM start", firstMessageQueue, firstMessageMillis);
+
+        if (exitAfterFirstMessage) {
+            Thread exit = new Thread(() -> System.exit(SpringApplication.exit(applicationContext)), "startup-exit");
+            exit.setDaemon(false);
+            exit.start();
+        }
+    }
+
+    /**
+     * Listener containers invoke the advice chain with (channel, message) or
+     * (channel, batch of messages).
+     */
+    private static String consumerQueue(Object[] arguments) {
+        Object data = arguments.length > 1 ? arguments[1] : null;
+        if (data instanceof List<?> batch && !batch.isEmpty()) {
+            data = batch.get(0);
+        }
+        return data instanceof Message message ? message.getMessageProperties().getConsumerQueue() : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("aotEnabled", AotDetector.useGeneratedArtifacts());
+        stats.put("activeProfiles", List.of(applicationContext.getEnvironment().getActiveProfiles()));
+        stats.put("readyMs", readyMillis >= 0 ? readyMillis : null);
+        stats.put("firstMessageMs", firstMessageMillis >= 0 ? firstMessageMillis : null);
+        stats.put("firstMessageQueue", firstMessageQueue);
+        return stats;
+    }
+}
@@ -0,0 +1,314 @@
+package com.work.broker.outbox;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.work.broker.producer.PublishBackpressureException;
+import com.work.broker.routing.MessagePriorityResolver;
+import com.work.broker.support.MappedAppendLog;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Producer-side outbox (rabbitmq.outbox.enabled=true).
+ *
+ * The producers append each message to a local memory-mapped log
+ * (MappedAppendLog) and return; the HTTP path no longer depends on the
+ * broker being up or unblocked. A relay thread reads the log in batches,
+ * publishes each batch on one channel with publisher confirms and only
+ * advances the committed offset once every message of the batch has been
+ * acked. On a nack, a confirm timeout or a connection failure the same batch
+ * is retried after retry-delay-ms.
+ *
+ * Entries survive restarts: whatever is past the committed offset is relayed
+ * after the next start. Delivery is at-least-once - a batch retried after a
+ * partial publish reaches the queues twice, and the consumers' message-ID
+ * deduplication drops the copies.
+ *
+ * The backlog is bounded by rabbitmq.outbox.max-backlog; past it producers
+ * get PublishBackpressureException (503).
+ *
+ * Each entry keeps the producer's traceparent; the relay publishes it under
+ * an "outbox relay" span of that trace, so the time spent in the outbox
+ * shows up.
+ */
+@Component
+@Slf4j
+public class EventOutbox implements SmartLifecycle {
+
+    private static final String TRACEPARENT = "traceparent";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final JsonMapper jsonMapper;
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    @Value("${rabbitmq.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${rabbitmq.outbox.directory:./data/outbox}")
+    private Path directory;
+
+    @Value("${rabbitmq.outbox.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${rabbitmq.outbox.force-on-append:false}")
+    private boolean forceOnAppend;
+
+    @Value("${rabbitmq.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${rabbitmq.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${rabbitmq.outbox.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    @Value("${rabbitmq.outbox.max-backlog:1000000}")
+    private long maxBacklog;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder relayed = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private volatile String lastError;
+
+    private MappedAppendLog appendLog;
+    private Thread relay;
+    private volatile boolean running;
+
+    public EventOutbox(RabbitTemplate rabbitTemplate, JsonMapper jsonMapper,
+                       ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.jsonMapper = jsonMapper;
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the W3C traceparent of the current span, or null if untraced
+     */
+    public String currentTraceparent() {
+        TraceContext context = tracer.currentTraceContext().context();
+        if (context == null) {
+            return null;
+        }
+        Map<String, String> carrier = new HashMap<>();
+        propagator.inject(context, carrier, Map::put);
+        return carrier.get(TRACEPARENT);
+    }
+
+    /**
+     * Append a message for relaying. Returns once the entry is in the log.
+     *
+     * @throws PublishBackpressureException if the backlog is at rabbitmq.outbox.max-backlog
+     */
+    public void append(OutboxEntry entry) {
+        if (!running) {
+            throw new IllegalStateException("Outbox is not running");
+        }
+        if (backlog.incrementAndGet() > maxBacklog) {
+            backlog.decrementAndGet();
+            throw new PublishBackpressureException((int) Math.min(Integer.MAX_VALUE, maxBacklog));
+        }
+        try {
+            appendLog.append(jsonMapper.writeValueAsBytes(entry));
+        } catch (RuntimeException e) {
+            backlog.decrementAndGet();
+            throw e;
+        }
+        appended.increment();
+        LockSupport.unpark(relay);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("backlog", backlog.get());
+        stats.put("appended", appended.sum());
+        stats.put("relayed", relayed.sum());
+        stats.put("failedBatches", failedBatches.sum());
+        stats.put("lastError", lastError);
+        if (appendLog != null) {
+            stats.put("committedOffset", appendLog.committed());
+        }
+        return stats;
+    }
+
+    private void relayLoop() {
+        while (running) {
+            MappedAppendLog.Batch batch = appendLog.read(appendLog.committed(), batchSize);
+            if (batch.records().isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            try {
+                publish(decode(batch.records()));
+                appendLog.commit(batch.next());
+                relayed.add(batch.records().size());
+                backlog.addAndGet(-batch.records().size());
+                lastError = null;
+            } catch (RuntimeException | TimeoutException | ExecutionException e) {
+                failedBatches.increment();
+                lastError = e.getMessage();
+                log.warn("Outbox relay failed for a batch of {} messages, retrying in {} ms: {}",
+                        batch.records().size(), retryDelayMs, e.getMessage());
+                backOff();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wait retry-delay-ms before the next attempt; appends unpark the relay,
+     * so park until the deadline rather than once.
+     */
+    private void backOff() {
+        long retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryDelayMs);
+        long remaining;
+        while (running && (remaining = retryAt - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private List<OutboxEntry> decode(List<byte[]> records) {
+        List<OutboxEntry> entries = new ArrayList<>(records.size());
+        for (byte[] record : records) {
+            try {
+                entries.add(jsonMapper.readValue(record, OutboxEntry.class));
+            } catch (RuntimeException e) {
+                // The record passed its CRC, so it will never decode: skip it instead of blocking the relay
+                log.error("Skipping undecodable outbox record: {}", e.getMessage());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Publish every entry on one channel, then wait for all confirms.
+     */
+    private void publish(List<OutboxEntry> entries)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        List<CorrelationData> correlations = new ArrayList<>(entries.size());
+        rabbitTemplate.invoke(operations -> {
+            for (OutboxEntry entry : entries) {
+                CorrelationData correlation = new CorrelationData(entry.message().getId());
+                MessagePostProcessor postProcessor = entry.priority() != null
+                        ? MessagePriorityResolver.withPriority(entry.priority())
+                        : message -> message;
+                inRelaySpan(entry, () -> operations.convertAndSend(entry.exchange(), entry.routingKey(),
+                        entry.message(), postProcessor, correlation));
+                correlations.add(correlation);
+            }
+            return null;
+        });
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (CorrelationData correlation : correlations) {
+            CorrelationData.Confirm confirm = correlation.getFuture()
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (!confirm.ack()) {
+                throw new IllegalStateException("Broker nacked message " + correlation.getId()
+                        + ": " + confirm.reason());
+            }
+        }
+    }
+
+    /**
+     * Run the publish under a span continuing the producer's trace; the
+     * RabbitTemplate's publish span becomes its child.
+     */
+    private void inRelaySpan(OutboxEntry entry, Runnable publish) {
+        if (entry.traceparent() == null) {
+            publish.run();
+            return;
+        }
+        Span span = propagator.extract(Map.of(TRACEPARENT, entry.traceparent()), Map::get)
+                .name("outbox relay")
+                .tag("messaging.message.id", entry.message().getId())
+                .start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            publish.run();
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            appendLog = new MappedAppendLog(directory, segmentSizeMb * 1024 * 1024, forceOnAppend);
+            backlog.set(appendLog.countUncommitted());
+            running = true;
+            relay = new Thread(this::relayLoop, "outbox-relay");
+            relay.setDaemon(true);
+            relay.start();
+            log.info("Outbox enabled in {} - {} messages pending from a previous run", directory, backlog.get());
+        }
+    }
+
+    /**
+     * Stops the relay; unrelayed entries stay in the log for the next start.
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(relay);
+        try {
+            relay.join(confirmTimeoutMs + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appendLog.close();
+        log.info("Outbox stopped - {} messages left to relay on the next start", backlog.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the components that publish through the
+     * producers at phase 0 (delayed scheduler, coalescer).
+     */
+    @Override
+    public int getPhase() {
+        return -1;
+    }
+}
@@ -0,0 +1,13 @@
+package com.work.broker.outbox;
+
+import com.work.broker.model.EventMessage;
+
+/**
+ * A message accepted by a producer and waiting in the outbox to be relayed.
+ *
+ * @param priority    AMQP priority, or null for none
+ * @param traceparent trace context of the producer, continued by the relay (null if untraced)
+ */
+public record OutboxEntry(String exchange, String routingKey, Integer priority, EventMessage message,
+                          String traceparent) {
+}
@@ -0,0 +1,338 @@
+package com.work.broker.producer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.work.broker.support.HashedTimerWheel;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * In-process scheduler for delayed publishes to the topic exchange.
+ *
+ * Pending messages live in a HashedTimerWheel: scheduling and cancelling are
+ * O(1) and a tick only visits one bucket, so millions of pending messages
+ * cost memory but no per-message CPU until they are due.
+ *
+ * Every schedule, publish and cancel is appended to a journal file
+ * (rabbitmq.delayed.journal): "S" + JSON for a scheduled message, "D" + ID
+ * once it is published or cancelled. On startup the journal is replayed and
+ * messages that became due while the application was down are published
+ * right away. The journal is compacted on startup and whenever more than
+ * compact-threshold completed entries have accumulated.
+ *
+ * Delivery is at-least-once: a crash between the publish and its "D"
+ * record publishes the message again after the restart.
+ *
+ * A message that has become unroutable when it is due is dropped: it gets its
+ * "D" record and is counted as dropped, not published.
+ */
+@Component
+@Slf4j
+public class DelayedMessageScheduler implements SmartLifecycle {
+
+    private static final String SCHEDULED = "S";
+    private static final String DONE = "D";
+
+    private final ObjectProvider<TopicExchangeProducer> producer;
+    private final JsonMapper jsonMapper;
+
+    @Value("${rabbitmq.delayed.journal:./data/delayed-messages.journal}")
+    private Path journalPath;
+
+    @Value("${rabbitmq.delayed.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${rabbitmq.delayed.wheel-size:4096}")
+    private int wheelSize;
+
+    @Value("${rabbitmq.delayed.max-delay:30d}")
+    private Duration maxDelay;
+
+    @Value("${rabbitmq.delayed.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    @Value("${rabbitmq.delayed.compact-threshold:100000}")
+    private long compactThreshold;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final Object journalLock = new Object();
+
+    private HashedTimerWheel timerWheel;
+    private ExecutorService publisher;
+    private BufferedWriter journal;
+    private long completedInJournal;
+    private volatile boolean running;
+
+    public DelayedMessageScheduler(ObjectProvider<TopicExchangeProducer> producer, JsonMapper jsonMapper) {
+        this.producer = producer;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * Journal the message and publish it at deliverAt.
+     *
+     * @throws IllegalArgumentException if deliverAt is further away than rabbitmq.delayed.max-delay
+     *                                  or the message ID is already scheduled
+     */
+    public ScheduledMessage schedule(ScheduledMessage scheduled) {
+        if (!running) {
+            throw new IllegalStateException("Delayed message scheduler is not running");
+        }
+        if (scheduled.deliverAt().isAfter(Instant.now().plus(maxDelay))) {
+            throw new IllegalArgumentException("Delay exceeds the maximum of " + maxDelay);
+        }
+        Pending entry = new Pending(scheduled);
+        if (pending.putIfAbsent(scheduled.id(), entry) != null) {
+            throw new IllegalArgumentException("Message " + scheduled.id() + " is already scheduled");
+        }
+        try {
+            appendScheduled(scheduled);
+        } catch (RuntimeException e) {
+            pending.remove(scheduled.id());
+            throw e;
+        }
+        arm(entry, delayMillis(scheduled.deliverAt()));
+        return scheduled;
+    }
+
+    /**
+     * @return false if the message is not pending (unknown, already published or cancelled)
+     */
+    public boolean cancel(String id) {
+        Pending entry = pending.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.timeout != null) {
+            entry.timeout.cancel();
+        }
+        appendDone(id);
+        cancelled.increment();
+        return true;
+    }
+
+    public ScheduledMessage get(String id) {
+        Pending entry = pending.get(id);
+        return entry != null ? entry.scheduled : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("published", published.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("cancelled", cancelled.sum());
+        stats.put("retries", retries.sum());
+        stats.put("journal", journalPath.toAbsolutePath().toString());
+        return stats;
+    }
+
+    private void arm(Pending entry, long delayMs) {
+        entry.timeout = timerWheel.schedule(() -> publisher.execute(() -> publish(entry)),
+                delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void publish(Pending entry) {
+        ScheduledMessage scheduled = entry.scheduled;
+        if (pending.get(scheduled.id()) != entry) {
+            return;
+        }
+        LongAdder outcome = published;
+        try {
+            producer.getObject().sendMessage(scheduled.routingKey(), scheduled.message());
+        } catch (UnroutableMessageException e) {
+            log.warn("Dropping scheduled message {}: {}", scheduled.id(), e.getMessage());
+            outcome = dropped;
+        } catch (RuntimeException e) {
+            if (running) {
+                log.warn("Scheduled message {} could not be published, retrying in {} ms: {}",
+                        scheduled.id(), retryDelayMs, e.getMessage());
+                retries.increment();
+                arm(entry, retryDelayMs);
+            }
+            return;
+        }
+        if (pending.remove(scheduled.id(), entry)) {
+            appendDone(scheduled.id());
+            outcome.increment();
+        }
+    }
+
+    private long delayMillis(Instant deliverAt) {
+        return Math.max(0, Duration.between(Instant.now(), deliverAt).toMillis());
+    }
+
+    private void appendScheduled(ScheduledMessage scheduled) {
+        append(SCHEDULED + jsonMapper.writeValueAsString(scheduled));
+    }
+
+    private void appendDone(String id) {
+        append(DONE + id);
+        synchronized (journalLock) {
+            if (++completedInJournal >= compactThreshold) {
+                compact();
+            }
+        }
+    }
+
+    private void append(String record) {
+        synchronized (journalLock) {
+            try {
+                journal.write(record);
+                journal.newLine();
+                journal.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write to the delayed message journal", e);
+            }
+        }
+    }
+
+    /**
+     * Rewrite the journal with only the pending messages.
+     */
+    private void compact() {
+        synchronized (journalLock) {
+            Path temp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+            try {
+                if (journal != null) {
+                    journal.close();
+                }
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    for (Pending entry : pending.values()) {
+                        writer.write(SCHEDULED + jsonMapper.writeValueAsString(entry.scheduled));
+                        writer.newLine();
+                    }
+                }
+                Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                journal = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                completedInJournal = 0;
+                log.debug("Delayed message journal compacted to {} pending messages", pending.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not compact the delayed message journal", e);
+            }
+        }
+    }
+
+    private Map<String, ScheduledMessage> replay() throws IOException {
+        Map<String, ScheduledMessage> replayed = new LinkedHashMap<>();
+        if (!Files.exists(journalPath)) {
+            return replayed;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(SCHEDULED)) {
+                    try {
+                        ScheduledMessage scheduled = jsonMapper.readValue(line.substring(1), ScheduledMessage.class);
+                        replayed.put(scheduled.id(), scheduled);
+                    } catch (RuntimeException e) {
+                        // A torn last line after a crash; everything before it is intact
+                        log.warn("Skipping unreadable journal record: {}", e.getMessage());
+                    }
+                } else if (line.startsWith(DONE)) {
+                    replayed.remove(line.substring(1));
+                }
+            }
+        }
+        return replayed;
+    }
+
+    @Override
+    public void start() {
+        try {
+            Files.createDirectories(journalPath.toAbsolutePath().getParent());
+            Map<String, ScheduledMessage> replayed = replay();
+
+            timerWheel = new HashedTimerWheel("delayed-message-timer", tickMs, wheelSize);
+            publisher = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "delayed-message-publisher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (ScheduledMessage scheduled : replayed.values()) {
+                pending.put(scheduled.id(), new Pending(scheduled));
+            }
+            // Overdue entries fire right away: the journal must be open and the scheduler running first
+            compact();
+            running = true;
+            for (Pending entry : pending.values()) {
+                arm(entry, delayMillis(entry.scheduled.deliverAt()));
+            }
+            log.info("Delayed message scheduler started - {} pending messages restored from {}",
+                    replayed.size(), journalPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the delayed message journal " + journalPath, e);
+        }
+    }
+
+    /**
+     * Pending messages stay in the journal and are restored on the next start.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        timerWheel.stop();
+        publisher.shutdown();
+        try {
+            publisher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (journalLock) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Could not close the delayed message journal: {}", e.getMessage());
+            }
+        }
+        log.info("Delayed message scheduler stopped - {} pending messages kept in the journal", pending.size());
+        pending.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private static final class Pending {
+        private final ScheduledMessage scheduled;
+        private volatile HashedTimerWheel.Timeout timeout;
+
+        private Pending(ScheduledMessage scheduled) {
+            this.scheduled = scheduled;
+        }
+    }
+}
@@ -4,7 +4,10 @@ import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.work.broker.logging.MessageLog;
 import com.work.broker.model.EventMessage;
+import com.work.broker.outbox.EventOutbox;
+import com.work.broker.outbox.OutboxEntry;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +17,8 @@ import lombok.extern.slf4j.Slf4j;
  *
  * Broadcasts messages to ALL bound queues.
  * The routing key is ignored - every queue receives the message.
+ * With rabbitmq.outbox.enabled the message goes through the EventOutbox.
+ * Each publish is traced by the RabbitTemplate observation (see RabbitMQConfig).
  */
 @Service
 @RequiredArgsConstructor
@@ -21,6 +26,9 @@ import lombok.extern.slf4j.Slf4j;
 public class FanoutExchangeProducer {
 
     private final AmqpTemplate amqpTemplate;
+    private final PublishRateLimiter rateLimiter;
+    private final EventOutbox outbox;
+    private final MessageLog messageLog;
 
     @Value("${rabbitmq.fanout.exchange}")
     private String fanoutExchange;
@@ -29,12 +37,20 @@ public class FanoutExchangeProducer {
      * Broadcast message to all queues bound to the fanout exchange
      *
      * @param message The message to broadcast
+     * @throws PublishRateLimitedException if the exchange is over its publish rate
+     * @throws PublishBackpressureException if the outbox backlog is full
      */
     public void broadcastMessage(EventMessage message) {
-        log.info("Broadcasting to Fanout Exchange [{}]: {}", fanoutExchange, message);
-
-        amqpTemplate.convertAndSend(fanoutExchange, "", message);
-
-        log.info("Message broadcasted to all subscribers");
+        if (outbox.isEnabled()) {
+            outbox.append(new OutboxEntry(fanoutExchange, "", null, message, outbox.currentTraceparent()));
+        } else {
+            rateLimiter.acquire(fanoutExchange, "");
+            amqpTemplate.convertAndSend(fanoutExchange, "", message);
+        }
+
+        messageLog.at(log, fanoutExchange)
+                .addKeyValue("exchange", fanoutExchange)
+                .addKeyValue("messageId", message.getId())
+                .log("Message broadcasted to all subscribers");
     }
 }
@@ -0,0 +1,16 @@
+package com.work.broker.producer;
+
+/**
+ * Thrown when the reactive publish buffer (or the RPC pending-request limit)
+ * is full and the message cannot be accepted without blocking the caller.
+ */
+public class PublishBackpressureException extends RuntimeException {
+
+    public PublishBackpressureException(int bufferSize) {
+        super("Publish buffer is full (" + bufferSize + " pending messages)");
+    }
+
+    public PublishBackpressureException(String message) {
+        super(message);
+    }
+}
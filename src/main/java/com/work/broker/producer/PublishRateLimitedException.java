@@ -0,0 +1,25 @@
+package com.work.broker.producer;
+
+/**
+ * Thrown when a publish exceeds the current rate limit of its
+ * exchange/routing key (see PublishRateLimiter).
+ */
+public class PublishRateLimitedException extends RuntimeException {
+
+    private final String key;
+    private final long retryAfterMillis;
+
+    public PublishRateLimitedException(String key, long retryAfterMillis, String reason) {
+        super("Publish rate limit reached for " + key + " (" + reason + "), retry in " + retryAfterMillis + " ms");
+        this.key = key;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,329 @@
+package com.work.broker.producer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionBlockedEvent;
+import org.springframework.amqp.rabbit.connection.ConnectionUnblockedEvent;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.work.broker.routing.TopicRoutingTable;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Token-bucket rate limiter for the producers, one bucket per
+ * exchange/routing key.
+ *
+ * Every bucket refills at rabbitmq.ratelimit.permits-per-second and holds at
+ * most rabbitmq.ratelimit.burst tokens. A bucket left idle long enough to
+ * refill completely is dropped (a new one starts full, so nothing changes),
+ * and past rabbitmq.ratelimit.max-keys buckets new routing keys share one
+ * overflow bucket per exchange. The effective rate is scaled down by
+ * broker signals:
+ * - connection blocked (resource alarm): every publish is rejected while any
+ *   publisher connection is blocked. Blocks of the consumer connection are
+ *   ignored, and a connection that closes while blocked no longer counts
+ * - confirm latency (reported by ReactiveEventPublisher): AIMD - the
+ *   latency factor is halved while the average latency is above the
+ *   threshold and recovers by a fixed step otherwise. It only applies to the
+ *   reactive publishes that measure it (acquireConfirmed), and the average
+ *   expires when no confirm has been measured for
+ *   rabbitmq.ratelimit.confirm-latency-expiry-ms
+ * - queue depth (reported by QueueDepthMonitor): each key is slowed down
+ *   linearly once any queue it reaches grows past the high watermark, down
+ *   to the minimum factor at the max
+ *
+ * A rejected publish throws PublishRateLimitedException, mapped to
+ * 429 Too Many Requests with Retry-After by PublishExceptionHandler.
+ */
+@Component
+@Slf4j
+public class PublishRateLimiter {
+
+    private static final double EWMA_ALPHA = 0.2;
+    private static final double RECOVERY_STEP = 0.1;
+
+    private final TopicRoutingTable routingTable;
+    private final String topicExchange;
+    private final Map<String, Set<String>> exchangeQueues = new HashMap<>();
+
+    @Value("${rabbitmq.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rabbitmq.ratelimit.permits-per-second:1000}")
+    private double permitsPerSecond;
+
+    @Value("${rabbitmq.ratelimit.burst:200}")
+    private double burst;
+
+    @Value("${rabbitmq.ratelimit.min-factor:0.05}")
+    private double minFactor;
+
+    @Value("${rabbitmq.ratelimit.confirm-latency-threshold-ms:50}")
+    private double confirmLatencyThresholdMs;
+
+    @Value("${rabbitmq.ratelimit.confirm-latency-expiry-ms:5000}")
+    private long confirmLatencyExpiryMs;
+
+    @Value("${rabbitmq.ratelimit.queue-depth.high:10000}")
+    private long queueDepthHigh;
+
+    @Value("${rabbitmq.ratelimit.queue-depth.max:100000}")
+    private long queueDepthMax;
+
+    @Value("${rabbitmq.ratelimit.blocked-retry-after-ms:5000}")
+    private long blockedRetryAfterMs;
+
+    @Value("${rabbitmq.ratelimit.max-keys:10000}")
+    private int maxKeys;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Long> queueDepths = new ConcurrentHashMap<>();
+
+    /** Connections of the publisher factory, and those among them the broker is blocking (with the reason) */
+    private final Set<com.rabbitmq.client.Connection> publisherConnections = ConcurrentHashMap.newKeySet();
+    private final Map<com.rabbitmq.client.Connection, String> blockedConnections = new ConcurrentHashMap<>();
+    private volatile double latencyFactor = 1.0;
+    private volatile double confirmLatencyEwmaMs = -1;
+    private volatile long lastConfirmSampleNanos;
+
+    public PublishRateLimiter(TopicRoutingTable routingTable,
+                              List<Binding> declaredBindings,
+                              @Qualifier("publisherConnectionFactory") CachingConnectionFactory publisherConnectionFactory,
+                              @Value("${rabbitmq.topic.exchange}") String topicExchange) {
+        this.routingTable = routingTable;
+        publisherConnectionFactory.addConnectionListener(this::onPublisherConnection);
+        this.topicExchange = topicExchange;
+        declaredBindings.stream()
+                .filter(binding -> binding.isDestinationQueue() && !topicExchange.equals(binding.getExchange()))
+                .forEach(binding -> exchangeQueues
+                        .computeIfAbsent(binding.getExchange(), e -> new LinkedHashSet<>())
+                        .add(binding.getDestination()));
+    }
+
+    /**
+     * Take one permit for a publish.
+     *
+     * @throws PublishRateLimitedException if the bucket is empty or the broker is blocking publishers
+     */
+    public void acquire(String exchange, String routingKey) {
+        acquire(exchange, routingKey, 1.0);
+    }
+
+    /**
+     * Take one permit for a publish whose confirm latency is fed back through
+     * recordConfirmLatency(); the rate is also scaled by the latency factor.
+     *
+     * @throws PublishRateLimitedException if the bucket is empty or the broker is blocking publishers
+     */
+    public void acquireConfirmed(String exchange, String routingKey) {
+        acquire(exchange, routingKey, latencyFactor);
+    }
+
+    private void acquire(String exchange, String routingKey, double confirmFactor) {
+        if (!enabled) {
+            return;
+        }
+        String key = routingKey.isEmpty() ? exchange : exchange + "/" + routingKey;
+        if (!blockedConnections.isEmpty()) {
+            String reason = blockedConnections.values().stream().findFirst().orElse(null);
+            throw new PublishRateLimitedException(key, blockedRetryAfterMs, "connection blocked: " + reason);
+        }
+
+        double factor = confirmFactor * depthFactor(targetQueues(exchange, routingKey));
+        long waitMillis = bucket(exchange, key).tryAcquire(permitsPerSecond * factor, burst);
+        if (waitMillis > 0) {
+            throw new PublishRateLimitedException(key, waitMillis,
+                    String.format("%.1f msg/s", permitsPerSecond * factor));
+        }
+    }
+
+    private TokenBucket bucket(String exchange, String key) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        String bucketKey = buckets.size() < maxKeys ? key : exchange + "/*";
+        return buckets.computeIfAbsent(bucketKey, k -> new TokenBucket(burst));
+    }
+
+    /**
+     * Drop buckets that have been idle long enough to refill to the burst size,
+     * even at the minimum rate.
+     */
+    @Scheduled(fixedDelayString = "${rabbitmq.ratelimit.adjust-interval-ms:1000}")
+    public void evictIdleBuckets() {
+        long refillNanos = (long) (burst / (permitsPerSecond * minFactor) * 1_000_000_000L);
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.idleNanos(now) > refillNanos);
+    }
+
+    /**
+     * Feed a publisher confirm round trip into the latency average.
+     */
+    public void recordConfirmLatency(long latencyMicros) {
+        double latencyMs = latencyMicros / 1000.0;
+        double current = confirmLatencyEwmaMs;
+        confirmLatencyEwmaMs = current < 0 ? latencyMs : current + EWMA_ALPHA * (latencyMs - current);
+        lastConfirmSampleNanos = System.nanoTime();
+    }
+
+    /**
+     * Latest known message count of a queue.
+     */
+    public void updateQueueDepth(String queue, long depth) {
+        queueDepths.put(queue, depth);
+    }
+
+    @EventListener
+    public void onConnectionBlocked(ConnectionBlockedEvent event) {
+        com.rabbitmq.client.Connection connection = event.getConnection().getDelegate();
+        if (!publisherConnections.contains(connection)) {
+            return;
+        }
+        blockedConnections.put(connection, String.valueOf(event.getReason()));
+        log.warn("Broker blocked publisher connection {} ({}) - rejecting publishes",
+                connection.getClientProvidedName(), event.getReason());
+    }
+
+    @EventListener
+    public void onConnectionUnblocked(ConnectionUnblockedEvent event) {
+        com.rabbitmq.client.Connection connection = event.getConnection().getDelegate();
+        if (blockedConnections.remove(connection) != null) {
+            log.info("Broker unblocked publisher connection {} - {} still blocked",
+                    connection.getClientProvidedName(), blockedConnections.size());
+        }
+    }
+
+    /**
+     * Track each physical publisher connection until it shuts down; a
+     * blocked connection that closes never sends its unblock.
+     */
+    private void onPublisherConnection(Connection connection) {
+        com.rabbitmq.client.Connection delegate = connection.getDelegate();
+        if (delegate == null) {
+            return;
+        }
+        publisherConnections.add(delegate);
+        delegate.addShutdownListener(cause -> {
+            publisherConnections.remove(delegate);
+            blockedConnections.remove(delegate);
+        });
+    }
+
+    /**
+     * AIMD on the confirm latency: halve the rate while it is above the threshold, recover step by step otherwise.
+     * An average without recent samples is dropped, so the factor recovers once confirmed publishing stops.
+     */
+    @Scheduled(fixedDelayString = "${rabbitmq.ratelimit.adjust-interval-ms:1000}")
+    public void adjust() {
+        if (confirmLatencyEwmaMs >= 0
+                && System.nanoTime() - lastConfirmSampleNanos > TimeUnit.MILLISECONDS.toNanos(confirmLatencyExpiryMs)) {
+            confirmLatencyEwmaMs = -1;
+        }
+        double latency = confirmLatencyEwmaMs;
+        double previous = latencyFactor;
+        if (latency > confirmLatencyThresholdMs) {
+            latencyFactor = Math.max(minFactor, previous / 2);
+        } else {
+            latencyFactor = Math.min(1.0, previous + RECOVERY_STEP);
+        }
+        if (latencyFactor != previous) {
+            log.debug("Publish rate factor {} -> {} (confirm latency {} ms)", previous, latencyFactor, latency);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("permitsPerSecond", permitsPerSecond);
+        stats.put("burst", burst);
+        stats.put("blocked", !blockedConnections.isEmpty());
+        stats.put("blockedConnections", blockedConnections.size());
+        stats.put("latencyFactor", latencyFactor);
+        stats.put("confirmLatencyMs", confirmLatencyEwmaMs < 0 ? null : confirmLatencyEwmaMs);
+        stats.put("queueDepths", new LinkedHashMap<>(queueDepths));
+        stats.put("activeKeys", buckets.size());
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        buckets.forEach((key, bucket) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("granted", bucket.granted);
+            entry.put("rejected", bucket.rejected);
+            keys.put(key, entry);
+        });
+        stats.put("keys", keys);
+        return stats;
+    }
+
+    private Collection<String> targetQueues(String exchange, String routingKey) {
+        if (topicExchange.equals(exchange)) {
+            return routingTable.predict(routingKey).queues();
+        }
+        return exchangeQueues.getOrDefault(exchange, Set.of());
+    }
+
+    /**
+     * 1 up to the high watermark, then linearly down to minFactor at the max depth.
+     */
+    private double depthFactor(Collection<String> queues) {
+        long depth = 0;
+        for (String queue : queues) {
+            depth = Math.max(depth, queueDepths.getOrDefault(queue, 0L));
+        }
+        if (depth <= queueDepthHigh) {
+            return 1.0;
+        }
+        if (depth >= queueDepthMax) {
+            return minFactor;
+        }
+        double excess = (double) (depth - queueDepthHigh) / (queueDepthMax - queueDepthHigh);
+        return 1.0 - excess * (1.0 - minFactor);
+    }
+
+    private static final class TokenBucket {
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+        private long granted;
+        private long rejected;
+
+        private TokenBucket(double tokens) {
+            this.tokens = tokens;
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the milliseconds until one is available
+         */
+        private synchronized long tryAcquire(double ratePerSecond, double capacity) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / 1_000_000_000.0 * ratePerSecond);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                granted++;
+                return 0;
+            }
+            rejected++;
+            return Math.max(1, (long) Math.ceil((1 - tokens) / ratePerSecond * 1000));
+        }
+
+        private synchronized long idleNanos(long now) {
+            return now - lastRefill;
+        }
+    }
+}
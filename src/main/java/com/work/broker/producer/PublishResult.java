@@ -0,0 +1,12 @@
+package com.work.broker.producer;
+
+/**
+ * Outcome of a publish once the broker has confirmed (or rejected) it.
+ */
+public record PublishResult(String messageId,
+                            String exchange,
+                            String routingKey,
+                            boolean acknowledged,
+                            String reason,
+                            long confirmLatencyMicros) {
+}
@@ -0,0 +1,229 @@
+package com.work.broker.producer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.work.broker.model.EventMessage;
+import com.work.broker.routing.MessagePriorityResolver;
+import com.work.broker.routing.RoutePrediction;
+import com.work.broker.routing.TopicRoutingTable;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Non-blocking producer for the reactive endpoints.
+ *
+ * Callers hand over a message and get a Mono that completes when the broker
+ * confirms it. Messages go into a bounded sink and are drained by a single
+ * publisher thread in batches (bufferTimeout): each batch is sent on one
+ * channel via RabbitTemplate.invoke(), and every message carries a
+ * CorrelationData whose confirm future completes its Mono.
+ *
+ * When the sink is full, publish() fails fast with PublishBackpressureException
+ * instead of blocking the HTTP thread. Publishes also go through
+ * PublishRateLimiter, which is fed the confirm latency measured here.
+ * The caller's observation is captured with the message and made current
+ * again on the publisher thread, so the RabbitTemplate's publish span joins
+ * the caller's trace.
+ *
+ * Requires publisher confirms on the publisher connection factory
+ * (rabbitmq.pool.publisher.confirm-type=correlated).
+ */
+@Service
+@Slf4j
+public class ReactiveEventPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final TopicRoutingTable routingTable;
+    private final MessagePriorityResolver priorityResolver;
+    private final PublishRateLimiter rateLimiter;
+    private final ObservationRegistry observationRegistry;
+
+    @Value("${rabbitmq.topic.exchange}")
+    private String topicExchange;
+
+    @Value("${rabbitmq.fanout.exchange}")
+    private String fanoutExchange;
+
+    @Value("${rabbitmq.topic.reject-unroutable:true}")
+    private boolean rejectUnroutable;
+
+    @Value("${rabbitmq.reactive.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${rabbitmq.reactive.batch-size:100}")
+    private int batchSize;
+
+    @Value("${rabbitmq.reactive.batch-window-ms:5}")
+    private long batchWindowMs;
+
+    @Value("${rabbitmq.reactive.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private Sinks.Many<PendingPublish> sink;
+    private Scheduler publisherScheduler;
+    private Disposable subscription;
+
+    public ReactiveEventPublisher(RabbitTemplate rabbitTemplate, TopicRoutingTable routingTable,
+                                  MessagePriorityResolver priorityResolver, PublishRateLimiter rateLimiter,
+                                  ObservationRegistry observationRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.routingTable = routingTable;
+        this.priorityResolver = priorityResolver;
+        this.rateLimiter = rateLimiter;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<PendingPublish>get(bufferSize).get());
+        publisherScheduler = Schedulers.newSingle("amqp-reactive-publisher");
+        subscription = sink.asFlux()
+                .bufferTimeout(batchSize, Duration.ofMillis(batchWindowMs), publisherScheduler, true)
+                .concatMap(batch -> Mono.fromRunnable(() -> publishBatch(batch)).subscribeOn(publisherScheduler), 1)
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (this) {
+            sink.tryEmitComplete();
+        }
+        subscription.dispose();
+        publisherScheduler.dispose();
+    }
+
+    /**
+     * Wait until every accepted publish has been confirmed or failed.
+     *
+     * @return the publishes still unconfirmed at the deadline (System.nanoTime())
+     */
+    public int awaitOutstanding(long deadlineNanos) throws InterruptedException {
+        while (outstanding.get() > 0 && System.nanoTime() - deadlineNanos < 0) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return outstanding.get();
+    }
+
+    /**
+     * Publish to the topic exchange; completes when the broker confirms.
+     */
+    public Mono<PublishResult> sendMessage(String routingKey, EventMessage message) {
+        RoutePrediction prediction = routingTable.predict(routingKey);
+        if (!prediction.isRoutable() && rejectUnroutable) {
+            return Mono.error(new UnroutableMessageException(topicExchange, routingKey));
+        }
+        priorityResolver.assign(routingKey, message);
+        return publish(topicExchange, routingKey, message)
+                .doOnNext(result -> routingTable.recordPublish(prediction));
+    }
+
+    /**
+     * Publish to the fanout exchange; completes when the broker confirms.
+     */
+    public Mono<PublishResult> broadcastMessage(EventMessage message) {
+        return publish(fanoutExchange, "", message);
+    }
+
+    private Mono<PublishResult> publish(String exchange, String routingKey, EventMessage message) {
+        return Mono.defer(() -> {
+            rateLimiter.acquireConfirmed(exchange, routingKey);
+            PendingPublish pending = new PendingPublish(exchange, routingKey, message,
+                    observationRegistry.getCurrentObservation());
+            Sinks.EmitResult result;
+            synchronized (this) {
+                result = sink.tryEmitNext(pending);
+            }
+            if (result.isFailure()) {
+                return Mono.error(new PublishBackpressureException(bufferSize));
+            }
+            outstanding.incrementAndGet();
+            pending.result.whenComplete((publishResult, error) -> outstanding.decrementAndGet());
+            return Mono.fromFuture(pending.result)
+                    .timeout(Duration.ofMillis(confirmTimeoutMs));
+        });
+    }
+
+    private void publishBatch(List<PendingPublish> batch) {
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (PendingPublish pending : batch) {
+                    pending.sentAt = System.nanoTime();
+                    try (Observation.Scope scope = pending.parent != null ? pending.parent.openScope() : null) {
+                        if (pending.message.getPriority() != null) {
+                            operations.convertAndSend(pending.exchange, pending.routingKey, pending.message,
+                                    MessagePriorityResolver.withPriority(pending.message.getPriority()),
+                                    pending.correlation);
+                        } else {
+                            operations.convertAndSend(pending.exchange, pending.routingKey,
+                                    pending.message, pending.correlation);
+                        }
+                    }
+                    pending.sent = true;
+                    pending.correlation.getFuture().whenComplete((confirm, error) -> {
+                        pending.complete(confirm, error);
+                        if (error == null) {
+                            rateLimiter.recordConfirmLatency((System.nanoTime() - pending.sentAt) / 1_000);
+                        }
+                    });
+                }
+                return null;
+            });
+            log.debug("Published batch of {} messages", batch.size());
+        } catch (RuntimeException e) {
+            // Messages already handed to the channel still get their confirm (a nack if the channel closed)
+            List<PendingPublish> unsent = batch.stream().filter(pending -> !pending.sent).toList();
+            log.error("Failed to publish {} of a batch of {} messages: {}", unsent.size(), batch.size(), e.getMessage());
+            unsent.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+    }
+
+    private static final class PendingPublish {
+        private final String exchange;
+        private final String routingKey;
+        private final EventMessage message;
+        private final CorrelationData correlation;
+        private final Observation parent;
+        private final CompletableFuture<PublishResult> result = new CompletableFuture<>();
+        private long sentAt;
+        private boolean sent;
+
+        private PendingPublish(String exchange, String routingKey, EventMessage message, Observation parent) {
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.message = message;
+            this.correlation = new CorrelationData(message.getId());
+            this.parent = parent;
+        }
+
+        private void complete(CorrelationData.Confirm confirm, Throwable error) {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            long latencyMicros = (System.nanoTime() - sentAt) / 1_000;
+            result.complete(new PublishResult(message.getId(), exchange, routingKey,
+                    confirm.ack(), confirm.reason(), latencyMicros));
+        }
+    }
+}
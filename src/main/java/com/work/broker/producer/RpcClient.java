@@ -0,0 +1,131 @@
+package com.work.broker.producer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+
+import com.work.broker.model.EventMessage;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Request/reply over the broker (see RpcConfig).
+ *
+ * call() publishes the request to the RPC queue and returns a future that
+ * completes with the reply, matched by correlation ID on the direct reply-to
+ * channel. RpcRequestConsumer answers it.
+ *
+ * - At most rabbitmq.rpc.max-pending requests wait for a reply; beyond that
+ *   call() fails fast with PublishBackpressureException.
+ * - Without a reply after rabbitmq.rpc.timeout-ms the future fails with
+ *   AmqpReplyTimeoutException. The same value is the request's AMQP
+ *   expiration, so the broker drops requests nobody is waiting for.
+ *
+ * Each call is an "rpc" observation from send to reply; the request's
+ * publish span is its child and carries it as traceparent.
+ */
+@Service
+@Slf4j
+public class RpcClient {
+
+    private static final ParameterizedTypeReference<EventMessage> REPLY_TYPE = new ParameterizedTypeReference<>() {
+    };
+
+    private final AsyncRabbitTemplate asyncTemplate;
+    private final ObservationRegistry observationRegistry;
+    private final String requestQueue;
+    private final long timeoutMs;
+    private final int maxPending;
+    private final Semaphore pending;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder replies = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RpcClient(AsyncRabbitTemplate asyncTemplate,
+                     ObservationRegistry observationRegistry,
+                     @Value("${rabbitmq.rpc.queue}") String requestQueue,
+                     @Value("${rabbitmq.rpc.timeout-ms:5000}") long timeoutMs,
+                     @Value("${rabbitmq.rpc.max-pending:1000}") int maxPending) {
+        this.asyncTemplate = asyncTemplate;
+        this.observationRegistry = observationRegistry;
+        this.requestQueue = requestQueue;
+        this.timeoutMs = timeoutMs;
+        this.maxPending = maxPending;
+        this.pending = new Semaphore(maxPending);
+    }
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Send a request; the operation is request.getType().
+     */
+    public CompletableFuture<EventMessage> call(EventMessage request) {
+        if (!pending.tryAcquire()) {
+            rejected.increment();
+            throw new PublishBackpressureException("Too many pending RPC requests (" + maxPending + ")");
+        }
+        calls.increment();
+        Observation observation = Observation.createNotStarted("messaging.rpc", observationRegistry)
+                .contextualName("rpc " + request.getType())
+                .lowCardinalityKeyValue("rpc.operation", String.valueOf(request.getType()))
+                .highCardinalityKeyValue("messaging.message.id", request.getId())
+                .start();
+
+        CompletableFuture<EventMessage> reply;
+        try (Observation.Scope scope = observation.openScope()) {
+            reply = asyncTemplate.convertSendAndReceiveAsType("", requestQueue, request, message -> {
+                message.getMessageProperties().setExpiration(String.valueOf(timeoutMs));
+                return message;
+            }, REPLY_TYPE);
+        } catch (RuntimeException e) {
+            pending.release();
+            failures.increment();
+            observation.error(e);
+            observation.stop();
+            throw e;
+        }
+
+        return reply.whenComplete((response, error) -> {
+            pending.release();
+            if (error == null) {
+                replies.increment();
+            } else if (error instanceof AmqpReplyTimeoutException) {
+                timeouts.increment();
+                observation.error(error);
+            } else {
+                failures.increment();
+                observation.error(error);
+            }
+            observation.stop();
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requestQueue", requestQueue);
+        stats.put("timeoutMs", timeoutMs);
+        stats.put("maxPending", maxPending);
+        stats.put("pending", maxPending - pending.availablePermits());
+        stats.put("calls", calls.sum());
+        stats.put("replies", replies.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("failures", failures.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,11 @@
+package com.work.broker.producer;
+
+import java.time.Instant;
+
+import com.work.broker.model.EventMessage;
+
+/**
+ * A message waiting to be published to the topic exchange at deliverAt.
+ */
+public record ScheduledMessage(String id, String routingKey, Instant deliverAt, EventMessage message) {
+}
@@ -1,10 +1,18 @@
 package com.work.broker.producer;
 
+import java.time.Instant;
+
 import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.work.broker.logging.MessageLog;
 import com.work.broker.model.EventMessage;
+import com.work.broker.outbox.EventOutbox;
+import com.work.broker.outbox.OutboxEntry;
+import com.work.broker.routing.MessagePriorityResolver;
+import com.work.broker.routing.RoutePrediction;
+import com.work.broker.routing.TopicRoutingTable;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +22,15 @@ import lombok.extern.slf4j.Slf4j;
  *
  * Sends messages with specific routing keys that determine
  * which queues receive the message based on pattern matching.
+ * Each message also gets an AMQP priority derived from its routing key
+ * (see MessagePriorityResolver) unless it already carries one.
+ *
+ * With rabbitmq.outbox.enabled the message is appended to the EventOutbox
+ * instead of being published here; the outbox relay paces itself on the
+ * broker confirms, so the rate limiter is skipped in that mode.
+ *
+ * Each publish is traced by the RabbitTemplate observation; its trace
+ * context travels with the message (see RabbitMQConfig).
  */
 @Service
 @RequiredArgsConstructor
@@ -21,23 +38,85 @@ import lombok.extern.slf4j.Slf4j;
 public class TopicExchangeProducer {
 
     private final AmqpTemplate amqpTemplate;
+    private final TopicRoutingTable routingTable;
+    private final MessagePriorityResolver priorityResolver;
+    private final PublishRateLimiter rateLimiter;
+    private final DelayedMessageScheduler delayedScheduler;
+    private final EventOutbox outbox;
+    private final MessageLog messageLog;
 
     @Value("${rabbitmq.topic.exchange}")
     private String topicExchange;
 
+    @Value("${rabbitmq.topic.reject-unroutable:true}")
+    private boolean rejectUnroutable;
+
     /**
      * Send message with a specific routing key
      *
      * @param routingKey The routing key (e.g., "order.created", "system.error")
      * @param message    The message to send
+     * @return the queues the message is expected to reach
+     * @throws UnroutableMessageException if no binding matches and unroutable keys are rejected
+     * @throws PublishRateLimitedException if the routing key is over its publish rate
+     * @throws PublishBackpressureException if the outbox backlog is full
      */
-    public void sendMessage(String routingKey, EventMessage message) {
-        log.info("Sending to Topic Exchange [{}] with routing key [{}]: {}",
-                topicExchange, routingKey, message);
+    public RoutePrediction sendMessage(String routingKey, EventMessage message) {
+        RoutePrediction prediction = routingTable.predict(routingKey);
+        if (!prediction.isRoutable()) {
+            if (rejectUnroutable) {
+                throw new UnroutableMessageException(topicExchange, routingKey);
+            }
+            log.warn("Routing key [{}] matches no binding - message {} will be dropped by the broker",
+                    routingKey, message.getId());
+        }
 
-        amqpTemplate.convertAndSend(topicExchange, routingKey, message);
+        int priority = priorityResolver.assign(routingKey, message);
+        if (outbox.isEnabled()) {
+            outbox.append(new OutboxEntry(topicExchange, routingKey, priority, message,
+                    outbox.currentTraceparent()));
+        } else {
+            rateLimiter.acquire(topicExchange, routingKey);
+            amqpTemplate.convertAndSend(topicExchange, routingKey, message,
+                    MessagePriorityResolver.withPriority(priority));
+        }
+        routingTable.recordPublish(prediction);
 
-        log.info("Message sent successfully with routing key: {}", routingKey);
+        messageLog.at(log, topicExchange)
+                .addKeyValue("exchange", topicExchange)
+                .addKeyValue("routingKey", routingKey)
+                .addKeyValue("messageId", message.getId())
+                .addKeyValue("priority", priority)
+                .addKeyValue("queues", prediction::queues)
+                .log("Message sent");
+        return prediction;
+    }
+
+    /**
+     * Publish the message at a later time (see DelayedMessageScheduler).
+     * The routing key is checked now, so unroutable keys are rejected up front.
+     *
+     * @throws UnroutableMessageException if no binding matches and unroutable keys are rejected
+     */
+    public ScheduledMessage scheduleMessage(String routingKey, EventMessage message, Instant deliverAt) {
+        if (rejectUnroutable && !routingTable.predict(routingKey).isRoutable()) {
+            throw new UnroutableMessageException(topicExchange, routingKey);
+        }
+        return delayedScheduler.schedule(new ScheduledMessage(message.getId(), routingKey, deliverAt, message));
+    }
+
+    /**
+     * @return false if the message was not pending anymore
+     */
+    public boolean cancelScheduled(String messageId) {
+        return delayedScheduler.cancel(messageId);
+    }
+
+    /**
+     * Predict the queues a routing key would reach without publishing anything.
+     */
+    public RoutePrediction predictRoute(String routingKey) {
+        return routingTable.predict(routingKey);
     }
 
     public void sendOrderCreated(EventMessage message) {
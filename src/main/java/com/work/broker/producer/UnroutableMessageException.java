@@ -0,0 +1,19 @@
+package com.work.broker.producer;
+
+/**
+ * Thrown when a routing key matches none of the topic exchange bindings.
+ * Publishing it would only make the broker drop the message.
+ */
+public class UnroutableMessageException extends RuntimeException {
+
+    private final String routingKey;
+
+    public UnroutableMessageException(String exchange, String routingKey) {
+        super("Routing key '" + routingKey + "' matches no binding on exchange '" + exchange + "'");
+        this.routingKey = routingKey;
+    }
+
+    public String getRoutingKey() {
+        return routingKey;
+    }
+}
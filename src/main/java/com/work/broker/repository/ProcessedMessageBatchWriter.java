@@ -0,0 +1,72 @@
+package com.work.broker.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.work.broker.entity.ProcessedMessage;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Plain JDBC fast path for bulk inserts into processed_messages.
+ *
+ * Skips the persistence context entirely: no entity state, no dirty
+ * checking, one prepared statement executed as a JDBC batch.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProcessedMessageBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO processed_messages (message_id, queue_name, processed_at, status, message_type) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE processed_messages SET processed_at = ?, status = ?, message_type = ? "
+                    + "WHERE message_id = ? AND queue_name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert all records as one JDBC batch.
+     *
+     * @throws DuplicateKeyException if any record already exists
+     */
+    public void insertAll(List<ProcessedMessage> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bindInsert);
+    }
+
+    /**
+     * Insert one record, or overwrite the existing row for the same message and queue.
+     *
+     * @return true if the row was inserted, false if it was updated
+     */
+    public boolean insertOrUpdate(ProcessedMessage processed) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, ps -> bindInsert(ps, processed));
+            return true;
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(UPDATE_SQL,
+                    Timestamp.valueOf(processed.getProcessedAt()),
+                    processed.getStatus(),
+                    processed.getMessageType(),
+                    processed.getMessageId(),
+                    processed.getQueueName());
+            return false;
+        }
+    }
+
+    private void bindInsert(PreparedStatement ps, ProcessedMessage processed) throws SQLException {
+        ps.setString(1, processed.getMessageId());
+        ps.setString(2, processed.getQueueName());
+        ps.setTimestamp(3, Timestamp.valueOf(processed.getProcessedAt()));
+        ps.setString(4, processed.getStatus());
+        ps.setString(5, processed.getMessageType());
+    }
+}
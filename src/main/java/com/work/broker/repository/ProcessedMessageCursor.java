@@ -0,0 +1,42 @@
+package com.work.broker.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import com.work.broker.entity.ProcessedMessage;
+
+/**
+ * Keyset pagination position: the (processedAt, messageId, queueName) of the
+ * last row returned. Encoded as an opaque URL-safe token for the REST API.
+ */
+public record ProcessedMessageCursor(LocalDateTime processedAt, String messageId, String queueName) {
+
+    public static ProcessedMessageCursor after(ProcessedMessage message) {
+        return new ProcessedMessageCursor(message.getProcessedAt(), message.getMessageId(), message.getQueueName());
+    }
+
+    public String encode() {
+        String raw = processedAt + "|" + messageId + "|" + queueName;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static ProcessedMessageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // Message IDs are free-form, so the queue name is taken after the last separator
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            if (first == last) {
+                throw new IllegalArgumentException("Missing cursor field");
+            }
+            return new ProcessedMessageCursor(LocalDateTime.parse(raw.substring(0, first)),
+                    raw.substring(first + 1, last), raw.substring(last + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
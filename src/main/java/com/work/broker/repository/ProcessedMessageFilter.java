@@ -0,0 +1,16 @@
+package com.work.broker.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for processed message queries. Null fields are ignored.
+ *
+ * @param from inclusive lower bound on processedAt
+ * @param to   exclusive upper bound on processedAt
+ */
+public record ProcessedMessageFilter(String queueName,
+                                     String status,
+                                     String messageType,
+                                     LocalDateTime from,
+                                     LocalDateTime to) {
+}
@@ -10,19 +10,30 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.work.broker.entity.ProcessedMessage;
+import com.work.broker.entity.ProcessedMessageId;
 
 @Repository
-public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessage, String> {
+public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessage, ProcessedMessageId>,
+        ProcessedMessageRepositoryCustom {
 
     boolean existsByMessageId(String messageId);
 
     boolean existsByMessageIdAndQueueName(String messageId, String queueName);
 
-    List<ProcessedMessage> findByQueueName(String queueName);
+    /**
+     * One row per queue the message was delivered to
+     */
+    List<ProcessedMessage> findByMessageId(String messageId);
 
     @Modifying
     @Query("DELETE FROM ProcessedMessage p WHERE p.processedAt < :expirationDate")
     int deleteExpiredMessages(@Param("expirationDate") LocalDateTime expirationDate);
 
     long countByQueueName(String queueName);
+
+    /**
+     * Rows of [queueName, status, count]
+     */
+    @Query("SELECT p.queueName, p.status, COUNT(p) FROM ProcessedMessage p GROUP BY p.queueName, p.status")
+    List<Object[]> countByQueueNameAndStatus();
 }
@@ -0,0 +1,18 @@
+package com.work.broker.repository;
+
+import java.util.List;
+
+import com.work.broker.entity.ProcessedMessage;
+
+/**
+ * Keyset-paginated queries over processed_messages.
+ */
+public interface ProcessedMessageRepositoryCustom {
+
+    /**
+     * Next page ordered by (processedAt, messageId, queueName).
+     *
+     * @param after last row of the previous page, or null for the first page
+     */
+    List<ProcessedMessage> findPage(ProcessedMessageFilter filter, ProcessedMessageCursor after, int limit);
+}
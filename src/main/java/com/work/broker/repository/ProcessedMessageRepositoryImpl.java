@@ -0,0 +1,70 @@
+package com.work.broker.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.work.broker.entity.ProcessedMessage;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Keyset pagination: instead of OFFSET, each page starts strictly after the
+ * (processedAt, messageId, queueName) of the previous one, so every page is an index
+ * range scan no matter how deep the client has paged.
+ */
+public class ProcessedMessageRepositoryImpl implements ProcessedMessageRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProcessedMessage> findPage(ProcessedMessageFilter filter, ProcessedMessageCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProcessedMessage> query = cb.createQuery(ProcessedMessage.class);
+        Root<ProcessedMessage> root = query.from(ProcessedMessage.class);
+        Path<LocalDateTime> processedAt = root.get("processedAt");
+        Path<String> messageId = root.get("messageId");
+        Path<String> queueName = root.get("queueName");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.queueName() != null) {
+            predicates.add(cb.equal(queueName, filter.queueName()));
+        }
+        if (filter.status() != null) {
+            predicates.add(cb.equal(root.get("status"), filter.status()));
+        }
+        if (filter.messageType() != null) {
+            predicates.add(cb.equal(root.get("messageType"), filter.messageType()));
+        }
+        if (filter.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(processedAt, filter.from()));
+        }
+        if (filter.to() != null) {
+            predicates.add(cb.lessThan(processedAt, filter.to()));
+        }
+        if (after != null) {
+            predicates.add(cb.or(
+                    cb.greaterThan(processedAt, after.processedAt()),
+                    cb.and(cb.equal(processedAt, after.processedAt()),
+                            cb.greaterThan(messageId, after.messageId())),
+                    cb.and(cb.equal(processedAt, after.processedAt()),
+                            cb.equal(messageId, after.messageId()),
+                            cb.greaterThan(queueName, after.queueName()))));
+        }
+
+        query.select(root)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(processedAt), cb.asc(messageId), cb.asc(queueName));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,101 @@
+package com.work.broker.routing;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.work.broker.model.EventMessage;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Derives the AMQP priority of a topic message from its routing key.
+ *
+ * Rules come from rabbitmq.priority.rules as "pattern:priority" pairs, using
+ * the same '*' / '#' syntax as the bindings (e.g. "*.error:5,system.error:9").
+ * When several patterns match, the highest priority wins; no match means 0.
+ * Rules are compiled into a TopicBindingMatcher and results cached per key.
+ *
+ * The priority only has an effect on queues declared with x-max-priority
+ * (see TopicExchangeConfig).
+ */
+@Component
+@Slf4j
+public class MessagePriorityResolver {
+
+    private static final int MAX_CACHED_KEYS = 10_000;
+
+    private final int maxPriority;
+    private final TopicBindingMatcher matcher;
+    private final Map<String, Integer> priorities = new HashMap<>();
+    private final Map<String, Integer> cache = new ConcurrentHashMap<>();
+
+    public MessagePriorityResolver(@Value("${rabbitmq.priority.rules:}") List<String> rules,
+                                   @Value("${rabbitmq.priority.max:10}") int maxPriority) {
+        this.maxPriority = maxPriority;
+        for (String rule : rules) {
+            int separator = rule.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid priority rule (expected pattern:priority): " + rule);
+            }
+            priorities.put(rule.substring(0, separator).trim(),
+                    clamp(Integer.parseInt(rule.substring(separator + 1).trim())));
+        }
+        // The binding "queue" is unused here; the pattern is the lookup key into priorities
+        this.matcher = new TopicBindingMatcher(priorities.keySet().stream()
+                .map(pattern -> new RouteBinding(pattern, pattern))
+                .toList());
+        log.info("Message priority rules (max {}): {}", maxPriority, priorities);
+    }
+
+    public int getMaxPriority() {
+        return maxPriority;
+    }
+
+    /**
+     * Priority for a routing key according to the configured rules.
+     */
+    public int resolve(String routingKey) {
+        Integer priority = cache.get(routingKey);
+        if (priority == null) {
+            priority = matcher.match(routingKey).stream()
+                    .mapToInt(binding -> priorities.get(binding.pattern()))
+                    .max()
+                    .orElse(0);
+            if (cache.size() < MAX_CACHED_KEYS) {
+                cache.put(routingKey, priority);
+            }
+        }
+        return priority;
+    }
+
+    /**
+     * Set the message priority from the routing key unless the caller already set one.
+     *
+     * @return the effective priority, within [0, rabbitmq.priority.max]
+     */
+    public int assign(String routingKey, EventMessage message) {
+        int priority = message.getPriority() != null ? clamp(message.getPriority()) : resolve(routingKey);
+        message.setPriority(priority);
+        return priority;
+    }
+
+    /**
+     * Post-processor that copies the priority into the AMQP message properties.
+     */
+    public static MessagePostProcessor withPriority(int priority) {
+        return amqpMessage -> {
+            amqpMessage.getMessageProperties().setPriority(priority);
+            return amqpMessage;
+        };
+    }
+
+    private int clamp(int priority) {
+        return Math.max(0, Math.min(maxPriority, priority));
+    }
+}
@@ -0,0 +1,12 @@
+package com.work.broker.routing;
+
+/**
+ * A single topic binding: routing key pattern -> destination queue.
+ */
+public record RouteBinding(String pattern, String queue) {
+
+    @Override
+    public String toString() {
+        return pattern + " -> " + queue;
+    }
+}
@@ -0,0 +1,19 @@
+package com.work.broker.routing;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Result of matching a routing key against the known topic bindings.
+ */
+public record RoutePrediction(String routingKey, Set<RouteBinding> bindings) {
+
+    public boolean isRoutable() {
+        return !bindings.isEmpty();
+    }
+
+    public Set<String> queues() {
+        return bindings.stream().map(RouteBinding::queue).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
@@ -0,0 +1,82 @@
+package com.work.broker.routing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable trie compiled from topic binding patterns.
+ *
+ * Mirrors the broker's topic matching rules so the producer can predict
+ * which queues a routing key reaches without a round trip:
+ * - '*' matches exactly one word
+ * - '#' matches zero or more words
+ *
+ * Example: bindings "order.*", "*.error" and "#" compile to a root node
+ * with an "order" child, a '*' child and a '#' child.
+ */
+public final class TopicBindingMatcher {
+
+    private final Node root = new Node();
+
+    public TopicBindingMatcher(Collection<RouteBinding> bindings) {
+        for (RouteBinding binding : bindings) {
+            insert(binding);
+        }
+    }
+
+    /**
+     * Returns every binding whose pattern matches the routing key.
+     * An empty result means the broker would drop the message.
+     */
+    public Set<RouteBinding> match(String routingKey) {
+        String[] words = routingKey.isEmpty() ? new String[0] : routingKey.split("\\.", -1);
+        Set<RouteBinding> matches = new LinkedHashSet<>();
+        match(root, words, 0, matches);
+        return matches;
+    }
+
+    private void insert(RouteBinding binding) {
+        Node node = root;
+        if (!binding.pattern().isEmpty()) {
+            for (String word : binding.pattern().split("\\.", -1)) {
+                node = node.children.computeIfAbsent(word, w -> new Node());
+            }
+        }
+        node.bindings.add(binding);
+    }
+
+    private void match(Node node, String[] words, int index, Set<RouteBinding> matches) {
+        Node hash = node.children.get("#");
+        if (hash != null) {
+            // '#' may swallow any number of the remaining words, including none
+            for (int i = index; i <= words.length; i++) {
+                match(hash, words, i, matches);
+            }
+        }
+
+        if (index == words.length) {
+            matches.addAll(node.bindings);
+            return;
+        }
+
+        Node exact = node.children.get(words[index]);
+        if (exact != null) {
+            match(exact, words, index + 1, matches);
+        }
+
+        Node star = node.children.get("*");
+        if (star != null) {
+            match(star, words, index + 1, matches);
+        }
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<RouteBinding> bindings = new ArrayList<>();
+    }
+}
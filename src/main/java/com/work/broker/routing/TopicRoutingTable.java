@@ -0,0 +1,160 @@
+package com.work.broker.routing;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Producer-side view of the topic exchange bindings.
+ *
+ * Compiles the Binding beans declared in TopicExchangeConfig into a
+ * TopicBindingMatcher so a routing key can be resolved to its target
+ * queues locally. Predictions are cached per routing key and the cache is
+ * rebuilt whenever the binding set changes.
+ *
+ * Also keeps per-binding publish counters and a publish rate that is
+ * recalculated every few seconds.
+ */
+@Component
+@Slf4j
+public class TopicRoutingTable {
+
+    private static final int MAX_CACHED_KEYS = 10_000;
+
+    private final String topicExchange;
+
+    private final Set<RouteBinding> bindings = ConcurrentHashMap.newKeySet();
+
+    private final Map<RouteBinding, BindingCounter> counters = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot;
+
+    public TopicRoutingTable(List<Binding> declaredBindings,
+                             @Value("${rabbitmq.topic.exchange}") String topicExchange) {
+        this.topicExchange = topicExchange;
+        declaredBindings.stream()
+                .filter(this::isTopicQueueBinding)
+                .map(binding -> new RouteBinding(binding.getRoutingKey(), binding.getDestination()))
+                .forEach(bindings::add);
+        refresh();
+    }
+
+    /**
+     * Resolve the queues a routing key would be delivered to.
+     */
+    public RoutePrediction predict(String routingKey) {
+        Snapshot current = snapshot;
+        RoutePrediction prediction = current.cache.get(routingKey);
+        if (prediction == null) {
+            prediction = new RoutePrediction(routingKey, current.matcher.match(routingKey));
+            if (current.cache.size() < MAX_CACHED_KEYS) {
+                current.cache.put(routingKey, prediction);
+            }
+        }
+        return prediction;
+    }
+
+    /**
+     * Register a binding added at runtime and recompile the matcher.
+     */
+    public void addBinding(Binding binding) {
+        if (isTopicQueueBinding(binding)
+                && bindings.add(new RouteBinding(binding.getRoutingKey(), binding.getDestination()))) {
+            refresh();
+        }
+    }
+
+    /**
+     * Forget a binding removed at runtime and recompile the matcher.
+     */
+    public void removeBinding(Binding binding) {
+        RouteBinding route = new RouteBinding(binding.getRoutingKey(), binding.getDestination());
+        if (bindings.remove(route)) {
+            counters.remove(route);
+            refresh();
+        }
+    }
+
+    /**
+     * Rebuild the matcher from the current binding set and drop cached predictions.
+     */
+    public synchronized void refresh() {
+        snapshot = new Snapshot(new TopicBindingMatcher(Set.copyOf(bindings)));
+        log.info("Topic routing table compiled with {} bindings: {}", bindings.size(), bindings);
+    }
+
+    public Set<RouteBinding> getBindings() {
+        return new LinkedHashSet<>(bindings);
+    }
+
+    /**
+     * Count a publish against every binding the message was routed through.
+     */
+    public void recordPublish(RoutePrediction prediction) {
+        for (RouteBinding binding : prediction.bindings()) {
+            counters.computeIfAbsent(binding, b -> new BindingCounter()).total.increment();
+        }
+    }
+
+    /**
+     * Publish totals and rates (messages/second) per binding.
+     */
+    public Map<String, Map<String, Object>> getBindingStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (RouteBinding binding : bindings) {
+            BindingCounter counter = counters.get(binding);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("published", counter != null ? counter.total.sum() : 0L);
+            entry.put("ratePerSecond", counter != null ? counter.ratePerSecond : 0.0);
+            stats.put(binding.toString(), entry);
+        }
+        return stats;
+    }
+
+    @Scheduled(fixedRate = 5000)
+    public void updateRates() {
+        long now = System.nanoTime();
+        counters.values().forEach(counter -> counter.updateRate(now));
+    }
+
+    private boolean isTopicQueueBinding(Binding binding) {
+        return topicExchange.equals(binding.getExchange()) && binding.isDestinationQueue();
+    }
+
+    private static final class Snapshot {
+        private final TopicBindingMatcher matcher;
+        private final Map<String, RoutePrediction> cache = new ConcurrentHashMap<>();
+
+        private Snapshot(TopicBindingMatcher matcher) {
+            this.matcher = matcher;
+        }
+    }
+
+    private static final class BindingCounter {
+        private final LongAdder total = new LongAdder();
+        private long lastTotal;
+        private long lastTimestamp = System.nanoTime();
+        private volatile double ratePerSecond;
+
+        private void updateRate(long now) {
+            long current = total.sum();
+            double seconds = (now - lastTimestamp) / 1_000_000_000.0;
+            if (seconds > 0) {
+                ratePerSecond = (current - lastTotal) / seconds;
+            }
+            lastTotal = current;
+            lastTimestamp = now;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.work.broker.service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.work.broker.repository.ProcessedMessageRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory record counts per queue and status.
+ *
+ * MessageDeduplicationService updates the counters after each committed
+ * insert, update and delete, so reading them costs no database query. Bulk
+ * deletes (cleanup) and writes from other processes are not seen
+ * incrementally. The counters are therefore set periodically from a single
+ * GROUP BY query.
+ *
+ * With a store other than jpa the counters only reflect what this instance
+ * has written and released, and reconciliation is skipped. Redis records
+ * that expire by TTL are not subtracted.
+ */
+@Component
+@Slf4j
+public class DeduplicationCounters {
+
+    private final ProcessedMessageRepository repository;
+    private final boolean reconcileEnabled;
+
+    private final Map<String, Map<String, LongAdder>> counts = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime lastReconciledAt;
+
+    public DeduplicationCounters(ProcessedMessageRepository repository,
+                                 @Value("${deduplication.store:jpa}") String store) {
+        this.repository = repository;
+        this.reconcileEnabled = "jpa".equals(store);
+    }
+
+    public void increment(String queueName, String status) {
+        counter(queueName, status).increment();
+    }
+
+    public void decrement(String queueName, String status) {
+        counter(queueName, status).decrement();
+    }
+
+    public long getCount(String queueName) {
+        Map<String, LongAdder> byStatus = counts.get(queueName);
+        if (byStatus == null) {
+            return 0;
+        }
+        return byStatus.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getTotal() {
+        return counts.keySet().stream().mapToLong(this::getCount).sum();
+    }
+
+    /**
+     * Counts per queue and status, e.g. {"topic.queue.orders": {"PROCESSED": 10, "FAILED": 1}}
+     */
+    public Map<String, Map<String, Long>> getCountsByQueue() {
+        Map<String, Map<String, Long>> snapshot = new TreeMap<>();
+        counts.forEach((queueName, byStatus) -> {
+            Map<String, Long> statuses = new TreeMap<>();
+            byStatus.forEach((status, count) -> statuses.put(status, count.sum()));
+            snapshot.put(queueName, statuses);
+        });
+        return snapshot;
+    }
+
+    public Map<String, Long> getCountsByStatus() {
+        Map<String, Long> totals = new TreeMap<>();
+        counts.values().forEach(byStatus ->
+                byStatus.forEach((status, count) -> totals.merge(status, count.sum(), Long::sum)));
+        return totals;
+    }
+
+    public LocalDateTime getLastReconciledAt() {
+        return lastReconciledAt;
+    }
+
+    /**
+     * Set the counters to the current database counts.
+     * Runs at startup and then every deduplication.stats.reconcile-interval-ms,
+     * and after a bulk delete has committed.
+     *
+     * Runs in a transaction of its own: after a commit the caller's
+     * transaction is finished but still bound to the thread. The existing
+     * adders are adjusted in place rather than replaced, so increments made
+     * while the query runs are not written to a map that is then discarded.
+     */
+    @Scheduled(fixedDelayString = "${deduplication.stats.reconcile-interval-ms:60000}")
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public void reconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+        List<Object[]> rows = repository.countByQueueNameAndStatus();
+
+        Map<String, Map<String, Long>> fresh = new HashMap<>();
+        for (Object[] row : rows) {
+            fresh.computeIfAbsent((String) row[0], q -> new HashMap<>())
+                    .put(statusKey((String) row[1]), (Long) row[2]);
+        }
+
+        fresh.forEach((queueName, byStatus) ->
+                byStatus.forEach((status, count) -> set(counter(queueName, status), count)));
+        counts.forEach((queueName, byStatus) -> byStatus.forEach((status, adder) -> {
+            if (!fresh.getOrDefault(queueName, Map.of()).containsKey(status)) {
+                set(adder, 0);
+            }
+        }));
+        lastReconciledAt = LocalDateTime.now();
+        log.debug("Deduplication counters reconciled: {} queues", fresh.size());
+    }
+
+    private static void set(LongAdder adder, long value) {
+        adder.add(value - adder.sum());
+    }
+
+    private LongAdder counter(String queueName, String status) {
+        return counts.computeIfAbsent(queueName, q -> new ConcurrentHashMap<>())
+                .computeIfAbsent(statusKey(status), s -> new LongAdder());
+    }
+
+    private String statusKey(String status) {
+        return status != null ? status : "UNKNOWN";
+    }
+}
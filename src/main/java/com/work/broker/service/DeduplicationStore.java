@@ -0,0 +1,42 @@
+package com.work.broker.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Backend that records which messages each queue has already processed.
+ *
+ * Implementations (selected with deduplication.store):
+ * - jpa    (default) JpaDeduplicationStore - processed_messages table
+ * - redis  RedisDeduplicationStore - shared across instances, SET NX with TTL
+ * - memory InMemoryDeduplicationStore - local stand-in with the redis semantics
+ */
+public interface DeduplicationStore {
+
+    /**
+     * Atomically record the message as processed by the queue.
+     *
+     * @return true if this call recorded it, false if it was already recorded
+     */
+    boolean tryClaim(String messageId, String queueName, String messageType);
+
+    boolean exists(String messageId, String queueName);
+
+    boolean existsInAnyQueue(String messageId);
+
+    void markAsFailed(String messageId, String queueName, String messageType);
+
+    /**
+     * Forget the message for one queue so it can be processed again.
+     */
+    void release(String messageId, String queueName);
+
+    /**
+     * Forget the message for every queue.
+     */
+    void release(String messageId);
+
+    /**
+     * @return number of records removed
+     */
+    int deleteOlderThan(LocalDateTime expirationDate);
+}
@@ -0,0 +1,77 @@
+package com.work.broker.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.work.broker.repository.ProcessedMessageFilter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the most recent deduplication records into the near-cache at startup
+ * (deduplication.warmup.enabled=true).
+ *
+ * Runs before the listener containers start, so redeliveries after a crash or
+ * restart, which are the recent messages, are recognised from memory instead
+ * of hitting the database during the first minutes after boot.
+ */
+@Component
+@Slf4j
+public class DeduplicationWarmup implements SmartLifecycle {
+
+    private final ProcessedMessageQueryService queryService;
+    private final RecentMessageCache nearCache;
+    private final boolean enabled;
+    private final Duration window;
+
+    private volatile boolean running;
+
+    public DeduplicationWarmup(ProcessedMessageQueryService queryService,
+                               RecentMessageCache nearCache,
+                               @Value("${deduplication.warmup.enabled:false}") boolean enabled,
+                               @Value("${deduplication.warmup.window:1h}") Duration window) {
+        this.queryService = queryService;
+        this.nearCache = nearCache;
+        this.enabled = enabled;
+        this.window = window;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        ProcessedMessageFilter recent = new ProcessedMessageFilter(null, null, null,
+                LocalDateTime.now().minus(window), null);
+        long loaded = queryService.stream(recent,
+                processed -> nearCache.put(processed.getMessageId(), processed.getQueueName()));
+
+        log.info("Deduplication warm-up loaded {} records from the last {} in {} ms (near-cache size: {})",
+                loaded, window, (System.nanoTime() - start) / 1_000_000, nearCache.size());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Before the listener containers (phase Integer.MAX_VALUE).
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
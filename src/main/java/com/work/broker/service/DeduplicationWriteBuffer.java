@@ -0,0 +1,257 @@
+package com.work.broker.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.work.broker.entity.ProcessedMessage;
+import com.work.broker.repository.ProcessedMessageBatchWriter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Batched commit policy for JpaDeduplicationStore
+ * (deduplication.write.mode=batched).
+ *
+ * New records are kept in memory and written every
+ * deduplication.write.flush-interval-ms, or as soon as batch-size records are
+ * pending, one transaction per batch-size slice. Until then they are visible to duplicate checks through
+ * contains(). A record is removed from memory only after its batch commits,
+ * so the memory check plus the database check never miss it.
+ *
+ * Batches are written with a single JDBC batch insert
+ * (ProcessedMessageBatchWriter). If it hits an existing row - a record
+ * replaced while its previous version was being flushed - the batch is
+ * rolled back and retried row by row, updating the rows that already exist.
+ *
+ * Once deduplication.write.max-pending records are pending (the database is
+ * slow or down), add() flushes on the caller thread before returning, so
+ * consumers are slowed down to the write rate instead of growing the buffer.
+ * If the buffer is still full after that flush, the record is not buffered
+ * and add() fails, so the message is redelivered later.
+ *
+ * Trade-off: a crash loses at most one flush interval of records, and
+ * those messages may be reprocessed on redelivery. On a normal shutdown the
+ * buffer is flushed after the listener containers have stopped (lower phase).
+ */
+@Component
+@ConditionalOnProperty(name = "deduplication.store", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class DeduplicationWriteBuffer implements SmartLifecycle {
+
+    private final ProcessedMessageBatchWriter batchWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final DeduplicationCounters counters;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPending;
+    private final long flushIntervalMs;
+
+    private final Map<String, ProcessedMessage> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    public DeduplicationWriteBuffer(ProcessedMessageBatchWriter batchWriter,
+                                    TransactionTemplate transactionTemplate,
+                                    DeduplicationCounters counters,
+                                    @Value("${deduplication.write.mode:sync}") String writeMode,
+                                    @Value("${deduplication.write.batch-size:200}") int batchSize,
+                                    @Value("${deduplication.write.max-pending:10000}") int maxPending,
+                                    @Value("${deduplication.write.flush-interval-ms:50}") long flushIntervalMs) {
+        this.batchWriter = batchWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.counters = counters;
+        this.enabled = "batched".equals(writeMode);
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return false if a record for the same message and queue is already pending
+     * @throws TransientDataAccessResourceException if the buffer is full and could not be flushed
+     */
+    public boolean add(ProcessedMessage processed) {
+        String key = key(processed.getMessageId(), processed.getQueueName());
+        if (pending.putIfAbsent(key, processed) != null) {
+            return false;
+        }
+        if (pending.size() >= maxPending) {
+            if (!flushFull()) {
+                pending.remove(key, processed);
+                throw new TransientDataAccessResourceException(
+                        "Deduplication write buffer full (" + maxPending + " records) and the flush failed");
+            }
+        } else if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * Backpressure: callers queue on the flush lock and the first one writes
+     * the backlog; the others return once it is below max-pending.
+     *
+     * @return false if the buffer is still full
+     */
+    private boolean flushFull() {
+        synchronized (flushLock) {
+            if (pending.size() >= maxPending) {
+                log.debug("Deduplication write buffer full ({} records), flushing on the caller thread",
+                        pending.size());
+                flush();
+            }
+            return pending.size() < maxPending;
+        }
+    }
+
+    /**
+     * Replace a pending record (e.g. status change); the next flush writes the new version.
+     */
+    public void replace(ProcessedMessage processed) {
+        pending.put(key(processed.getMessageId(), processed.getQueueName()), processed);
+    }
+
+    public ProcessedMessage get(String messageId, String queueName) {
+        return pending.get(key(messageId, queueName));
+    }
+
+    public boolean contains(String messageId, String queueName) {
+        return pending.containsKey(key(messageId, queueName));
+    }
+
+    public boolean containsMessage(String messageId) {
+        return pending.values().stream().anyMatch(p -> p.getMessageId().equals(messageId));
+    }
+
+    public void remove(String messageId, String queueName) {
+        pending.remove(key(messageId, queueName));
+    }
+
+    public void removeMessage(String messageId) {
+        pending.values().removeIf(p -> p.getMessageId().equals(messageId));
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Write every pending record, one transaction per batch-size slice. A
+     * failed slice stops the flush; it and the rest stay pending for the next one.
+     *
+     * @return number of records written
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            List<ProcessedMessage> records = new ArrayList<>(pending.values());
+            int written = 0;
+            for (int from = 0; from < records.size(); from += batchSize) {
+                List<ProcessedMessage> batch = records.subList(from, Math.min(from + batchSize, records.size()));
+                if (!write(batch)) {
+                    break;
+                }
+                written += batch.size();
+            }
+            if (written > 0) {
+                log.debug("Flushed {} deduplication records", written);
+            }
+            return written;
+        }
+    }
+
+    private boolean write(List<ProcessedMessage> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> batchWriter.insertAll(batch));
+        } catch (DuplicateKeyException e) {
+            log.debug("Batch of {} deduplication records hit existing rows, writing row by row", batch.size());
+            try {
+                batch.forEach(batchWriter::insertOrUpdate);
+            } catch (RuntimeException rowFailure) {
+                log.error("Failed to flush {} deduplication records, will retry: {}",
+                        batch.size(), rowFailure.getMessage());
+                return false;
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} deduplication records, will retry: {}", batch.size(), e.getMessage());
+            return false;
+        }
+
+        for (ProcessedMessage processed : batch) {
+            // Only drop the exact version that was written; a replaced record stays for the next flush
+            if (pending.remove(key(processed.getMessageId(), processed.getQueueName()), processed)) {
+                counters.increment(processed.getQueueName(), processed.getStatus());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "dedup-write-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+            log.info("Deduplication write buffer enabled - batch size: {}, max pending: {}, flush interval: {} ms",
+                    batchSize, maxPending, flushIntervalMs);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int flushed = flush();
+            log.info("Deduplication write buffer stopped - flushed {} pending records, {} left",
+                    flushed, pending.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the listener containers (phase Integer.MAX_VALUE).
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private String key(String messageId, String queueName) {
+        return messageId + "|" + queueName;
+    }
+}
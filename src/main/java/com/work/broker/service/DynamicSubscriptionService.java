@@ -0,0 +1,317 @@
+package com.work.broker.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.event.Level;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.work.broker.logging.MessageLog;
+import com.work.broker.model.ContentFingerprint;
+import com.work.broker.model.EventMessage;
+import com.work.broker.model.SubscriptionRequest;
+import com.work.broker.monitoring.QueueDepthMonitor;
+import com.work.broker.routing.TopicRoutingTable;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Declares queues, bindings and listener containers at runtime.
+ *
+ * Complements the static @Bean definitions in TopicExchangeConfig and
+ * FanoutExchangeConfig: new subscriber groups can be attached to the
+ * existing exchanges without a restart. Containers are created from the
+ * shared rabbitListenerContainerFactory, so they inherit the same message
+ * converter and container settings as the @RabbitListener consumers.
+ *
+ * Queues declared as beans (the static consumers' queues) are rejected, and
+ * only subscriptions created through this service can be modified or removed.
+ * Their queues are registered with QueueDepthMonitor.
+ */
+@Service
+@Slf4j
+public class DynamicSubscriptionService {
+
+    private final AmqpAdmin amqpAdmin;
+    private final SimpleRabbitListenerContainerFactory containerFactory;
+    private final MessageConverter messageConverter;
+    private final MessageDeduplicationService deduplicationService;
+    private final TopicRoutingTable routingTable;
+    private final MessageLog messageLog;
+    private final QueueDepthMonitor queueDepthMonitor;
+    private final String topicExchange;
+    private final String fanoutExchange;
+    private final Set<String> declaredQueues;
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    public DynamicSubscriptionService(AmqpAdmin amqpAdmin,
+                                      SimpleRabbitListenerContainerFactory containerFactory,
+                                      MessageConverter messageConverter,
+                                      MessageDeduplicationService deduplicationService,
+                                      TopicRoutingTable routingTable,
+                                      MessageLog messageLog,
+                                      QueueDepthMonitor queueDepthMonitor,
+                                      List<Queue> declaredQueues,
+                                      @Value("${rabbitmq.topic.exchange}") String topicExchange,
+                                      @Value("${rabbitmq.fanout.exchange}") String fanoutExchange) {
+        this.amqpAdmin = amqpAdmin;
+        this.containerFactory = containerFactory;
+        this.messageConverter = messageConverter;
+        this.deduplicationService = deduplicationService;
+        this.routingTable = routingTable;
+        this.messageLog = messageLog;
+        this.queueDepthMonitor = queueDepthMonitor;
+        this.topicExchange = topicExchange;
+        this.fanoutExchange = fanoutExchange;
+        this.declaredQueues = declaredQueues.stream().map(Queue::getName).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Declare the queue and binding, then start consuming from it.
+     *
+     * @throws IllegalArgumentException if the request is invalid or the queue is already subscribed
+     */
+    public SubscriptionRequest subscribe(SubscriptionRequest request) {
+        validate(request);
+
+        Queue queue = new Queue(request.getQueueName(), true);
+        Binding binding = createBinding(queue, request);
+
+        // A queue that already existed is left in place if the subscription fails
+        boolean queueCreated = amqpAdmin.getQueueInfo(request.getQueueName()) == null;
+
+        Subscription subscription = new Subscription(request, binding);
+        if (subscriptions.putIfAbsent(request.getQueueName(), subscription) != null) {
+            throw new IllegalArgumentException("Queue already subscribed: " + request.getQueueName());
+        }
+
+        try {
+            amqpAdmin.declareQueue(queue);
+            amqpAdmin.declareBinding(binding);
+            routingTable.addBinding(binding);
+
+            subscription.container = createContainer(request);
+            subscription.container.start();
+            queueDepthMonitor.watch(request.getQueueName(), subscription.container);
+        } catch (RuntimeException e) {
+            rollback(subscription, queueCreated, e);
+            throw e;
+        }
+
+        log.info("Dynamic subscription started - queue: {}, binding: {}, concurrency: {}-{}, dedup: {}",
+                request.getQueueName(), binding, request.getConcurrency(),
+                request.getMaxConcurrency(), request.isDeduplication());
+        return request;
+    }
+
+    /**
+     * Stop consuming, remove the binding and optionally delete the queue.
+     *
+     * @return false if no dynamic subscription exists for the queue
+     */
+    public boolean unsubscribe(String queueName, boolean deleteQueue) {
+        Subscription subscription = subscriptions.remove(queueName);
+        if (subscription == null) {
+            return false;
+        }
+
+        subscription.container.destroy();
+        queueDepthMonitor.unwatch(queueName);
+        amqpAdmin.removeBinding(subscription.binding);
+        routingTable.removeBinding(subscription.binding);
+        if (deleteQueue) {
+            amqpAdmin.deleteQueue(queueName);
+        }
+
+        log.info("Dynamic subscription removed - queue: {}, queueDeleted: {}", queueName, deleteQueue);
+        return true;
+    }
+
+    /**
+     * Change the consumer count of a running subscription.
+     *
+     * @return false if no dynamic subscription exists for the queue
+     */
+    public boolean updateConcurrency(String queueName, int concurrency, int maxConcurrency) {
+        Subscription subscription = subscriptions.get(queueName);
+        if (subscription == null) {
+            return false;
+        }
+        validateConcurrency(concurrency, maxConcurrency);
+
+        // Raise the max first so concurrentConsumers never exceeds it
+        if (maxConcurrency >= subscription.request.getMaxConcurrency()) {
+            subscription.container.setMaxConcurrentConsumers(maxConcurrency);
+            subscription.container.setConcurrentConsumers(concurrency);
+        } else {
+            subscription.container.setConcurrentConsumers(concurrency);
+            subscription.container.setMaxConcurrentConsumers(maxConcurrency);
+        }
+        subscription.request.setConcurrency(concurrency);
+        subscription.request.setMaxConcurrency(maxConcurrency);
+        queueDepthMonitor.watch(queueName, subscription.container);
+
+        log.info("Dynamic subscription {} concurrency set to {}-{}", queueName, concurrency, maxConcurrency);
+        return true;
+    }
+
+    public List<SubscriptionRequest> getSubscriptions() {
+        List<SubscriptionRequest> result = new ArrayList<>();
+        subscriptions.values().forEach(subscription -> result.add(subscription.request));
+        return result;
+    }
+
+    public List<SimpleMessageListenerContainer> getContainers() {
+        List<SimpleMessageListenerContainer> containers = new ArrayList<>();
+        subscriptions.values().forEach(subscription -> {
+            if (subscription.container != null) {
+                containers.add(subscription.container);
+            }
+        });
+        return containers;
+    }
+
+    @PreDestroy
+    public void stopAll() {
+        subscriptions.values().forEach(subscription -> {
+            if (subscription.container != null) {
+                subscription.container.destroy();
+            }
+        });
+    }
+
+    /**
+     * Undo a failed subscribe: the container, the binding (broker and routing
+     * table) and the queue if this call created it. Cleanup failures are added
+     * to the original exception as suppressed.
+     */
+    private void rollback(Subscription subscription, boolean queueCreated, RuntimeException cause) {
+        String queueName = subscription.request.getQueueName();
+        List<Runnable> steps = new ArrayList<>();
+        steps.add(() -> queueDepthMonitor.unwatch(queueName));
+        if (subscription.container != null) {
+            steps.add(subscription.container::destroy);
+        }
+        steps.add(() -> routingTable.removeBinding(subscription.binding));
+        steps.add(() -> amqpAdmin.removeBinding(subscription.binding));
+        if (queueCreated) {
+            steps.add(() -> amqpAdmin.deleteQueue(queueName));
+        }
+        for (Runnable step : steps) {
+            try {
+                step.run();
+            } catch (RuntimeException e) {
+                cause.addSuppressed(e);
+            }
+        }
+        subscriptions.remove(queueName);
+        log.warn("Dynamic subscription {} failed and was rolled back: {}", queueName, cause.getMessage());
+    }
+
+    private Binding createBinding(Queue queue, SubscriptionRequest request) {
+        if ("fanout".equalsIgnoreCase(request.getExchangeType())) {
+            return BindingBuilder.bind(queue).to(new FanoutExchange(fanoutExchange));
+        }
+        return BindingBuilder.bind(queue).to(new TopicExchange(topicExchange)).with(request.getRoutingKey());
+    }
+
+    private SimpleMessageListenerContainer createContainer(SubscriptionRequest request) {
+        SimpleMessageListenerContainer container = containerFactory.createListenerContainer();
+        container.setQueueNames(request.getQueueName());
+        container.setConcurrentConsumers(request.getConcurrency());
+        container.setMaxConcurrentConsumers(request.getMaxConcurrency());
+        container.setMessageListener(message -> handle(request, message));
+        return container;
+    }
+
+    private void handle(SubscriptionRequest request, Message amqpMessage) {
+        EventMessage message = (EventMessage) messageConverter.fromMessage(amqpMessage);
+        String queueName = request.getQueueName();
+
+        if (request.isDeduplication()
+                && !deduplicationService.tryProcess(message,
+                        amqpMessage.getMessageProperties().getHeader(ContentFingerprint.HEADER), queueName)) {
+            messageLog.at(log, Level.WARN, queueName)
+                    .addKeyValue("queue", queueName)
+                    .addKeyValue("messageId", message.getId())
+                    .log("DUPLICATE event ignored");
+            return;
+        }
+
+        try {
+            processEvent(queueName, message);
+        } catch (RuntimeException e) {
+            log.atError()
+                    .addKeyValue("queue", queueName)
+                    .addKeyValue("messageId", message.getId())
+                    .addKeyValue("error", e.getMessage())
+                    .log("Error in dynamic subscriber");
+            if (request.isDeduplication()) {
+                deduplicationService.allowReprocess(message.getId(), queueName);
+            }
+            throw e;
+        }
+    }
+
+    private void processEvent(String queueName, EventMessage message) {
+        messageLog.at(log, queueName)
+                .addKeyValue("queue", queueName)
+                .addKeyValue("messageId", message.getId())
+                .addKeyValue("type", message.getType())
+                .addKeyValue("source", message.getSource())
+                .log("Processing event");
+    }
+
+    private void validate(SubscriptionRequest request) {
+        if (request.getQueueName() == null || request.getQueueName().isBlank()) {
+            throw new IllegalArgumentException("queueName is required");
+        }
+        if (declaredQueues.contains(request.getQueueName())) {
+            throw new IllegalArgumentException("Queue " + request.getQueueName()
+                    + " is declared by the application and cannot be subscribed dynamically");
+        }
+        String type = request.getExchangeType();
+        if (!"topic".equalsIgnoreCase(type) && !"fanout".equalsIgnoreCase(type)) {
+            throw new IllegalArgumentException("exchangeType must be 'topic' or 'fanout'");
+        }
+        if ("topic".equalsIgnoreCase(type)
+                && (request.getRoutingKey() == null || request.getRoutingKey().isBlank())) {
+            throw new IllegalArgumentException("routingKey is required for topic subscriptions");
+        }
+        validateConcurrency(request.getConcurrency(), request.getMaxConcurrency());
+    }
+
+    private void validateConcurrency(int concurrency, int maxConcurrency) {
+        if (concurrency < 1 || maxConcurrency < concurrency) {
+            throw new IllegalArgumentException("concurrency must be >= 1 and <= maxConcurrency");
+        }
+    }
+
+    private static final class Subscription {
+        private final SubscriptionRequest request;
+        private final Binding binding;
+        private volatile SimpleMessageListenerContainer container;
+
+        private Subscription(SubscriptionRequest request, Binding binding) {
+            this.request = request;
+            this.binding = binding;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.work.broker.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.work.broker.model.EventMessage;
+import com.work.broker.support.HashedTimerWheel;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional coalescing stage in front of a queue handler.
+ *
+ * Events of the same queue with the same EventMessage.key that arrive within
+ * coalescing.window-ms.&lt;queue&gt; of the first one are merged: when the
+ * window closes only the latest event is handed to the handler, and the
+ * earlier ones are dropped. Windows are tracked with a HashedTimerWheel and
+ * handlers run on a small worker pool.
+ *
+ * Callers still record every event in the deduplication store before
+ * submitting it, so superseded events are not processed again on redelivery.
+ *
+ * Trade-off: the listener returns (and the message is acked) when the event
+ * is submitted. A crash during the window loses the pending event, and a
+ * handler failure is logged but not redelivered; the deduplication claims of
+ * every event merged into the window are released, so the events are
+ * processed again if they are published again. On a normal shutdown all
+ * open windows are flushed after the listener containers have stopped.
+ */
+@Component
+@Slf4j
+public class EventCoalescer implements SmartLifecycle {
+
+    private static final String WINDOW_PREFIX = "coalescing.window-ms.";
+
+    private final Environment environment;
+    private final MessageDeduplicationService deduplicationService;
+    private final long tickMs;
+    private final int workerThreads;
+
+    private final Map<String, Long> windows = new ConcurrentHashMap<>();
+    private final Map<String, Window> open = new ConcurrentHashMap<>();
+    private final Map<String, QueueStats> stats = new ConcurrentHashMap<>();
+
+    private HashedTimerWheel timerWheel;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    public EventCoalescer(Environment environment,
+                          MessageDeduplicationService deduplicationService,
+                          @Value("${coalescing.tick-ms:10}") long tickMs,
+                          @Value("${coalescing.worker-threads:2}") int workerThreads) {
+        this.environment = environment;
+        this.deduplicationService = deduplicationService;
+        this.tickMs = tickMs;
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * @return true if coalescing.window-ms.&lt;queue&gt; is set to a positive value
+     */
+    public boolean isEnabled(String queue) {
+        return windowMs(queue) > 0;
+    }
+
+    /**
+     * Submit an event; the handler runs with the latest event of its key once the window closes.
+     * Events without a key (or while not running) are handled immediately on the caller thread.
+     */
+    public void submit(String queue, EventMessage message, Consumer<EventMessage> handler) {
+        long windowMs = windowMs(queue);
+        if (!running || windowMs <= 0 || message.getKey() == null) {
+            handler.accept(message);
+            return;
+        }
+
+        QueueStats queueStats = stats.computeIfAbsent(queue, q -> new QueueStats());
+        queueStats.received.increment();
+        String windowKey = queue + "|" + message.getKey();
+        open.compute(windowKey, (k, window) -> {
+            if (window == null) {
+                window = new Window(queue, message, handler);
+                timerWheel.schedule(() -> close(k), windowMs, TimeUnit.MILLISECONDS);
+                queueStats.openWindows.incrementAndGet();
+            } else {
+                log.atDebug()
+                        .addKeyValue("queue", queue)
+                        .addKeyValue("key", message.getKey())
+                        .addKeyValue("superseded", window.latest.getId())
+                        .addKeyValue("messageId", message.getId())
+                        .log("Event coalesced");
+                window.latest = message;
+                window.messageIds.add(message.getId());
+                queueStats.coalesced.increment();
+            }
+            return window;
+        });
+    }
+
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        stats.forEach((queue, queueStats) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("windowMs", windowMs(queue));
+            entry.put("received", queueStats.received.sum());
+            entry.put("coalesced", queueStats.coalesced.sum());
+            entry.put("processed", queueStats.processed.sum());
+            entry.put("openWindows", queueStats.openWindows.get());
+            result.put(queue, entry);
+        });
+        return result;
+    }
+
+    private void close(String windowKey) {
+        Window window = open.remove(windowKey);
+        if (window != null) {
+            workers.execute(() -> handle(window));
+        }
+    }
+
+    private void handle(Window window) {
+        QueueStats queueStats = stats.get(window.queue);
+        queueStats.openWindows.decrementAndGet();
+        try {
+            window.handler.accept(window.latest);
+            queueStats.processed.increment();
+        } catch (RuntimeException e) {
+            log.atError()
+                    .addKeyValue("queue", window.queue)
+                    .addKeyValue("messageId", window.latest.getId())
+                    .addKeyValue("events", window.messageIds.size())
+                    .addKeyValue("error", e.getMessage())
+                    .log("Coalesced event failed");
+            window.messageIds.forEach(id -> deduplicationService.allowReprocess(id, window.queue));
+        }
+    }
+
+    private long windowMs(String queue) {
+        return windows.computeIfAbsent(queue,
+                q -> environment.getProperty(WINDOW_PREFIX + q, Long.class, 0L));
+    }
+
+    @Override
+    public void start() {
+        timerWheel = new HashedTimerWheel("event-coalescer-timer", tickMs, 512);
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread thread = new Thread(r, "event-coalescer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+    }
+
+    /**
+     * Listener containers are already stopped (higher phase): close every open window now.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        timerWheel.stop();
+        int flushed = 0;
+        for (String windowKey : open.keySet()) {
+            Window window = open.remove(windowKey);
+            if (window != null) {
+                handle(window);
+                flushed++;
+            }
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flushed > 0) {
+            log.info("Event coalescer stopped - flushed {} open windows", flushed);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the listener containers (phase Integer.MAX_VALUE).
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private static final class Window {
+        private final String queue;
+        private final Consumer<EventMessage> handler;
+        private final List<String> messageIds = new ArrayList<>();
+        private EventMessage latest;
+
+        private Window(String queue, EventMessage first, Consumer<EventMessage> handler) {
+            this.queue = queue;
+            this.latest = first;
+            this.handler = handler;
+            this.messageIds.add(first.getId());
+        }
+    }
+
+    private static final class QueueStats {
+        private final LongAdder received = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder processed = new LongAdder();
+        private final AtomicInteger openWindows = new AtomicInteger();
+    }
+}
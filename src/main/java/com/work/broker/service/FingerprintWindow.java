@@ -0,0 +1,108 @@
+package com.work.broker.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sliding window of content fingerprints per queue (deduplication.key=fingerprint).
+ *
+ * A fingerprint is remembered for deduplication.fingerprint.window after the
+ * first message that carried it. Another message ID with the same fingerprint
+ * inside that window is a resend; the same ID again is a redelivery and is
+ * left to the ID-based check. When the message that holds a fingerprint is
+ * released (handler failure, abandoned on drain) the fingerprint is released
+ * with it, so the client's resend under a new ID is processed.
+ *
+ * Local to this instance and bounded by deduplication.fingerprint.max-entries;
+ * past it, one thread at a time drops expired entries and then arbitrary ones.
+ */
+@Component
+public class FingerprintWindow {
+
+    private final long windowNanos;
+    private final int maxEntries;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>(1024);
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public FingerprintWindow(@Value("${deduplication.fingerprint.window:10m}") Duration window,
+                             @Value("${deduplication.fingerprint.max-entries:100000}") int maxEntries) {
+        this.windowNanos = window.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Record the fingerprint for this message unless another message already holds it.
+     *
+     * @return the ID of the earlier message with the same fingerprint, or null if this one is new
+     *         (an earlier message without an ID is reported as an empty string)
+     */
+    public String claim(String fingerprint, String queueName, String messageId) {
+        long now = System.nanoTime();
+        String[] original = new String[1];
+        entries.compute(new Key(fingerprint, queueName), (key, current) -> {
+            if (current != null && now - current.expiresAt < 0) {
+                if (!Objects.equals(current.messageId, messageId)) {
+                    original[0] = current.messageId != null ? current.messageId : "";
+                }
+                return current;
+            }
+            return new Entry(messageId, now + windowNanos);
+        });
+        if (original[0] == null && entries.size() > maxEntries) {
+            evict(false);
+        }
+        return original[0];
+    }
+
+    /**
+     * Forget the fingerprint if it is still held by this message.
+     */
+    public void release(String fingerprint, String queueName, String messageId) {
+        entries.computeIfPresent(new Key(fingerprint, queueName),
+                (key, current) -> Objects.equals(current.messageId, messageId) ? null : current);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        evict(true);
+    }
+
+    private void evict(boolean expiredOnly) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+            if (expiredOnly) {
+                return;
+            }
+            int target = maxEntries - maxEntries / 10;
+            Iterator<Key> keys = entries.keySet().iterator();
+            while (entries.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private record Key(String fingerprint, String queueName) {
+    }
+
+    private record Entry(String messageId, long expiresAt) {
+    }
+}
@@ -0,0 +1,138 @@
+package com.work.broker.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process stand-in for RedisDeduplicationStore.
+ *
+ * Same semantics - atomic set-if-absent with a TTL per record - without
+ * needing a server, for local development and tests. State is neither shared
+ * nor persistent.
+ */
+@Component
+@ConditionalOnProperty(name = "deduplication.store", havingValue = "memory")
+public class InMemoryDeduplicationStore implements DeduplicationStore {
+
+    private final DeduplicationCounters counters;
+    private final long ttlNanos;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    public InMemoryDeduplicationStore(DeduplicationCounters counters,
+                                      @Value("${deduplication.redis.ttl:7d}") Duration ttl) {
+        this.counters = counters;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public boolean tryClaim(String messageId, String queueName, String messageType) {
+        long now = System.nanoTime();
+        Entry fresh = new Entry(queueName, "PROCESSED", now + ttlNanos, LocalDateTime.now());
+        Entry[] expired = new Entry[1];
+        Entry result = entries.compute(key(messageId, queueName), (key, current) -> {
+            if (current == null || current.isExpired(now)) {
+                expired[0] = current;
+                return fresh;
+            }
+            return current;
+        });
+        if (result != fresh) {
+            return false;
+        }
+        removed(expired[0]);
+        counters.increment(queueName, "PROCESSED");
+        return true;
+    }
+
+    @Override
+    public boolean exists(String messageId, String queueName) {
+        Entry entry = entries.get(key(messageId, queueName));
+        return entry != null && !entry.isExpired(System.nanoTime());
+    }
+
+    @Override
+    public boolean existsInAnyQueue(String messageId) {
+        long now = System.nanoTime();
+        return entries.entrySet().stream()
+                .anyMatch(e -> e.getKey().messageId().equals(messageId) && !e.getValue().isExpired(now));
+    }
+
+    @Override
+    public void markAsFailed(String messageId, String queueName, String messageType) {
+        removed(entries.put(key(messageId, queueName),
+                new Entry(queueName, "FAILED", System.nanoTime() + ttlNanos, LocalDateTime.now())));
+        counters.increment(queueName, "FAILED");
+    }
+
+    @Override
+    public void release(String messageId, String queueName) {
+        removed(entries.remove(key(messageId, queueName)));
+    }
+
+    @Override
+    public void release(String messageId) {
+        for (Key key : entries.keySet()) {
+            if (key.messageId().equals(messageId)) {
+                removed(entries.remove(key));
+            }
+        }
+    }
+
+    @Override
+    public int deleteOlderThan(LocalDateTime expirationDate) {
+        int deleted = 0;
+        for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().createdAt.isBefore(expirationDate) && entries.remove(entry.getKey(), entry.getValue())) {
+                removed(entry.getValue());
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Drop expired entries, like Redis does for keys with a TTL.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        for (Map.Entry<Key, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().isExpired(now) && entries.remove(entry.getKey(), entry.getValue())) {
+                removed(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Keep the counters in step with entries that left the map.
+     */
+    private void removed(Entry entry) {
+        if (entry != null) {
+            counters.decrement(entry.queueName, entry.status);
+        }
+    }
+
+    private Key key(String messageId, String queueName) {
+        return new Key(messageId, queueName);
+    }
+
+    /**
+     * A record rather than a joined string, so no message ID can match another's key.
+     */
+    private record Key(String messageId, String queueName) {
+    }
+
+    private record Entry(String queueName, String status, long expiresAtNanos, LocalDateTime createdAt) {
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.work.broker.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.work.broker.entity.ProcessedMessage;
+import com.work.broker.entity.ProcessedMessageId;
+import com.work.broker.repository.ProcessedMessageRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Default store: the processed_messages table.
+ *
+ * State is local to the database the instance points at. Every committed
+ * write is also applied to DeduplicationCounters.
+ *
+ * With deduplication.write.mode=batched, new records go through
+ * DeduplicationWriteBuffer and are committed in batches; the duplicate
+ * checks consult the buffer before the table.
+ */
+@Component
+@ConditionalOnProperty(name = "deduplication.store", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaDeduplicationStore implements DeduplicationStore {
+
+    private final ProcessedMessageRepository repository;
+    private final DeduplicationCounters counters;
+    private final DeduplicationWriteBuffer writeBuffer;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Not @Transactional: a concurrent claim of the same message and queue
+     * surfaces as a primary key violation at commit, which has to be caught
+     * outside the transaction.
+     */
+    @Override
+    public boolean tryClaim(String messageId, String queueName, String messageType) {
+        if (writeBuffer.contains(messageId, queueName)
+                || repository.existsByMessageIdAndQueueName(messageId, queueName)) {
+            return false;
+        }
+
+        ProcessedMessage processed = ProcessedMessage.builder()
+                .messageId(messageId)
+                .queueName(queueName)
+                .processedAt(LocalDateTime.now())
+                .status("PROCESSED")
+                .messageType(messageType)
+                .build();
+
+        if (writeBuffer.isEnabled()) {
+            return writeBuffer.add(processed);
+        }
+
+        try {
+            // New entity (Persistable.isNew), so this is a plain INSERT with no prior SELECT
+            transactionTemplate.executeWithoutResult(status -> repository.save(processed));
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        counters.increment(queueName, "PROCESSED");
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean exists(String messageId, String queueName) {
+        return writeBuffer.contains(messageId, queueName) || repository.existsByMessageIdAndQueueName(messageId, queueName);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existsInAnyQueue(String messageId) {
+        return writeBuffer.containsMessage(messageId) || repository.existsByMessageId(messageId);
+    }
+
+    @Override
+    @Transactional
+    public void markAsFailed(String messageId, String queueName, String messageType) {
+        ProcessedMessage buffered = writeBuffer.get(messageId, queueName);
+        if (buffered != null) {
+            writeBuffer.replace(ProcessedMessage.builder()
+                    .messageId(messageId)
+                    .queueName(queueName)
+                    .processedAt(LocalDateTime.now())
+                    .status("FAILED")
+                    .messageType(messageType)
+                    .build());
+            return;
+        }
+
+        Optional<ProcessedMessage> existing = repository.findById(new ProcessedMessageId(messageId, queueName));
+        existing.ifPresent(previous ->
+                afterCommit(() -> counters.decrement(previous.getQueueName(), previous.getStatus())));
+
+        // A loaded row is updated by dirty checking, a new one is inserted
+        ProcessedMessage processed = existing.orElseGet(() -> ProcessedMessage.builder()
+                .messageId(messageId)
+                .queueName(queueName)
+                .build());
+        processed.setProcessedAt(LocalDateTime.now());
+        processed.setStatus("FAILED");
+        processed.setMessageType(messageType);
+
+        repository.save(processed);
+        afterCommit(() -> counters.increment(queueName, "FAILED"));
+    }
+
+    @Override
+    @Transactional
+    public void release(String messageId, String queueName) {
+        writeBuffer.remove(messageId, queueName);
+        repository.findById(new ProcessedMessageId(messageId, queueName)).ifPresent(this::delete);
+    }
+
+    @Override
+    @Transactional
+    public void release(String messageId) {
+        writeBuffer.removeMessage(messageId);
+        repository.findByMessageId(messageId).forEach(this::delete);
+    }
+
+    @Override
+    @Transactional
+    public int deleteOlderThan(LocalDateTime expirationDate) {
+        int deleted = repository.deleteExpiredMessages(expirationDate);
+        afterCommit(counters::reconcile);
+        return deleted;
+    }
+
+    private void delete(ProcessedMessage processed) {
+        repository.delete(processed);
+        afterCommit(() -> counters.decrement(processed.getQueueName(), processed.getStatus()));
+    }
+
+    /**
+     * Run the action only once the current transaction has committed,
+     * so the counters never reflect rolled-back writes.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
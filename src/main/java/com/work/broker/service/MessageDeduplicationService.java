@@ -1,136 +1,253 @@
 package com.work.broker.service;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import com.work.broker.entity.ProcessedMessage;
-import com.work.broker.repository.ProcessedMessageRepository;
+import com.work.broker.lifecycle.InFlightMessages;
+import com.work.broker.model.ContentFingerprint;
+import com.work.broker.model.EventMessage;
+import com.work.broker.tracing.Observations;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service for message deduplication to ensure idempotent processing.
  *
- * Stores processed message IDs in database to detect duplicates.
- * Includes automatic cleanup of old records.
+ * Stores processed message IDs in a DeduplicationStore to detect duplicates:
+ * the local database by default, or a shared Redis-protocol server when
+ * several instances consume the same queues (deduplication.store=redis).
+ * A RecentMessageCache in front of the store answers repeated duplicates
+ * locally. Includes automatic cleanup of old records.
+ *
+ * With deduplication.key=fingerprint, a different message with the same
+ * content fingerprint (type + key + source + content, see ContentFingerprint) within
+ * deduplication.fingerprint.window is also a duplicate - this catches clients
+ * that resend a request and get a new message ID. The fingerprint is claimed
+ * after the ID and released with it (allowReprocess), so a resend after a
+ * failed attempt is processed.
+ *
+ * tryProcess() is timed as a "dedup" observation under the listener span. Claims
+ * made by a listener are recorded with its delivery (InFlightMessages) so a
+ * graceful shutdown can release the ones whose handler did not finish.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MessageDeduplicationService {
 
-    private final ProcessedMessageRepository repository;
+    private final DeduplicationStore store;
+    private final RecentMessageCache nearCache;
+    private final DeduplicationCounters counters;
+    private final ObservationRegistry observationRegistry;
+    private final FingerprintWindow fingerprintWindow;
+    private final InFlightMessages inFlightMessages;
+
+    @Value("${deduplication.key:id}")
+    private String dedupKey;
 
     private static final int RETENTION_DAYS = 7;
 
     /**
      * Check if message was already processed and mark it as processing.
-     * Uses database-level locking to handle concurrent access.
+     * The check and the mark are a single atomic operation on the store.
      *
      * @param messageId Unique message identifier
      * @param queueName Queue where the message was received
      * @param messageType Type/category of the message
      * @return true if message is NEW and should be processed, false if DUPLICATE
      */
-    @Transactional
     public boolean tryProcess(String messageId, String queueName, String messageType) {
-        if (messageId == null || messageId.isBlank()) {
-            log.warn("Message ID is null or empty - processing without deduplication");
-            return true;
+        return tryProcess(messageId, null, queueName, messageType);
+    }
+
+    /**
+     * Same as tryProcess(id, queue, type), plus the content fingerprint check
+     * when deduplication.key=fingerprint.
+     *
+     * @param fingerprint the x-content-fingerprint header; null to hash the message here
+     */
+    public boolean tryProcess(EventMessage message, String fingerprint, String queueName) {
+        if (!"fingerprint".equals(dedupKey)) {
+            return tryProcess(message.getId(), null, queueName, message.getType());
         }
+        return tryProcess(message.getId(), fingerprint != null ? fingerprint : ContentFingerprint.of(message),
+                queueName, message.getType());
+    }
 
-        if (repository.existsByMessageIdAndQueueName(messageId, queueName)) {
-            log.info("DUPLICATE detected - messageId: {}, queue: {}", messageId, queueName);
-            return false;
+    /**
+     * Deduplication key in use ("id" or "fingerprint") and, in fingerprint
+     * mode, how many fingerprints the window currently holds.
+     */
+    public Map<String, Object> getKeyStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("key", dedupKey);
+        if ("fingerprint".equals(dedupKey)) {
+            stats.put("fingerprintsInWindow", fingerprintWindow.size());
         }
+        return stats;
+    }
 
-        ProcessedMessage processed = ProcessedMessage.builder()
-                .messageId(messageId)
-                .queueName(queueName)
-                .processedAt(LocalDateTime.now())
-                .status("PROCESSED")
-                .messageType(messageType)
-                .build();
+    private boolean tryProcess(String messageId, String fingerprint, String queueName, String messageType) {
+        Observation observation = Observations.child("messaging.dedup", "dedup", observationRegistry).start();
+        try {
+            boolean hasId = messageId != null && !messageId.isBlank();
+            if (!hasId) {
+                log.warn("Message ID is null or empty - processing without deduplication");
+            } else if (!claim(messageId, queueName, messageType)) {
+                observation.lowCardinalityKeyValue("dedup.duplicate", "true")
+                        .lowCardinalityKeyValue("dedup.fingerprint", "false");
+                return false;
+            }
+
+            // Claimed after the ID, so a redelivered ID never takes the fingerprint
+            if (fingerprint != null) {
+                String original = fingerprintWindow.claim(fingerprint, queueName, messageId);
+                if (original != null) {
+                    if (hasId) {
+                        // Only the original message counts as processed
+                        store.release(messageId, queueName);
+                    }
+                    log.atDebug()
+                            .addKeyValue("messageId", messageId)
+                            .addKeyValue("queue", queueName)
+                            .addKeyValue("originalMessageId", original)
+                            .log("DUPLICATE content detected");
+                    observation.lowCardinalityKeyValue("dedup.duplicate", "true")
+                            .lowCardinalityKeyValue("dedup.fingerprint", "true");
+                    return false;
+                }
+            }
+
+            if (hasId) {
+                // Only our own claims are cached: a claim held elsewhere may still be released
+                nearCache.put(messageId, queueName, fingerprint);
+                inFlightMessages.recordClaim(messageId, queueName, fingerprint);
+                log.atDebug()
+                        .addKeyValue("messageId", messageId)
+                        .addKeyValue("queue", queueName)
+                        .log("Message marked as processed");
+            }
+            observation.lowCardinalityKeyValue("dedup.duplicate", "false")
+                    .lowCardinalityKeyValue("dedup.fingerprint", "false");
+            return true;
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
 
-        repository.save(processed);
-        log.debug("Message marked as processed - messageId: {}, queue: {}", messageId, queueName);
+    private boolean claim(String messageId, String queueName, String messageType) {
+        if (nearCache.contains(messageId, queueName)) {
+            log.atDebug()
+                    .addKeyValue("messageId", messageId)
+                    .addKeyValue("queue", queueName)
+                    .log("DUPLICATE detected (near-cache)");
+            return false;
+        }
 
+        if (!store.tryClaim(messageId, queueName, messageType)) {
+            log.atDebug()
+                    .addKeyValue("messageId", messageId)
+                    .addKeyValue("queue", queueName)
+                    .log("DUPLICATE detected");
+            return false;
+        }
         return true;
     }
 
     /**
      * Simple check if message was already processed (without marking).
      */
-    @Transactional(readOnly = true)
     public boolean isDuplicate(String messageId, String queueName) {
-        return repository.existsByMessageIdAndQueueName(messageId, queueName);
+        return nearCache.contains(messageId, queueName) || store.exists(messageId, queueName);
     }
 
     /**
      * Simple check if message was already processed in any queue.
      */
-    @Transactional(readOnly = true)
     public boolean isDuplicate(String messageId) {
-        return repository.existsByMessageId(messageId);
+        return store.existsInAnyQueue(messageId);
     }
 
     /**
      * Mark message as failed (for retry tracking).
      */
-    @Transactional
     public void markAsFailed(String messageId, String queueName, String messageType) {
-        ProcessedMessage processed = ProcessedMessage.builder()
-                .messageId(messageId)
-                .queueName(queueName)
-                .processedAt(LocalDateTime.now())
-                .status("FAILED")
-                .messageType(messageType)
-                .build();
-
-        repository.save(processed);
+        store.markAsFailed(messageId, queueName, messageType);
+    }
+
+    /**
+     * Remove a message from the processed list of one queue (to allow reprocessing there).
+     * Its content fingerprint is released too, found with the listener's
+     * delivery or in the near-cache.
+     */
+    public void allowReprocess(String messageId, String queueName) {
+        InFlightMessages.Claim claim = inFlightMessages.currentClaim(messageId, queueName);
+        String cached = nearCache.invalidate(messageId, queueName);
+        release(messageId, queueName, claim != null ? claim.fingerprint() : cached);
+    }
+
+    /**
+     * Release a claim recorded with a listener delivery (e.g. one abandoned on drain).
+     */
+    public void allowReprocess(InFlightMessages.Claim claim) {
+        nearCache.invalidate(claim.messageId(), claim.queueName());
+        release(claim.messageId(), claim.queueName(), claim.fingerprint());
     }
 
     /**
      * Remove a message from processed list (to allow reprocessing).
      */
-    @Transactional
     public void allowReprocess(String messageId) {
-        repository.deleteById(messageId);
+        nearCache.invalidate(messageId).forEach((queueName, fingerprint) ->
+                fingerprintWindow.release(fingerprint, queueName, messageId));
+        store.release(messageId);
         log.info("Message removed from deduplication - messageId: {}", messageId);
     }
 
+    private void release(String messageId, String queueName, String fingerprint) {
+        if (fingerprint != null) {
+            fingerprintWindow.release(fingerprint, queueName, messageId);
+        }
+        store.release(messageId, queueName);
+        log.info("Message removed from deduplication - messageId: {}, queue: {}", messageId, queueName);
+    }
+
     /**
      * Scheduled cleanup of old processed messages.
      * Runs daily at midnight.
      */
     @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
     public void cleanupExpiredMessages() {
         LocalDateTime expirationDate = LocalDateTime.now().minusDays(RETENTION_DAYS);
-        int deleted = repository.deleteExpiredMessages(expirationDate);
+        int deleted = store.deleteOlderThan(expirationDate);
         log.info("Cleaned up {} expired message records (older than {} days)", deleted, RETENTION_DAYS);
     }
 
     /**
      * Manual cleanup (for testing or maintenance).
      */
-    @Transactional
     public int cleanupOlderThan(int days) {
         LocalDateTime expirationDate = LocalDateTime.now().minusDays(days);
-        int deleted = repository.deleteExpiredMessages(expirationDate);
+        int deleted = store.deleteOlderThan(expirationDate);
         log.info("Manual cleanup: deleted {} records older than {} days", deleted, days);
         return deleted;
     }
 
     /**
-     * Get count of processed messages for a specific queue.
+     * Get count of processed messages for a specific queue (from the in-memory counters).
      */
-    @Transactional(readOnly = true)
     public long getProcessedCount(String queueName) {
-        return repository.countByQueueName(queueName);
+        return counters.getCount(queueName);
     }
 }
@@ -0,0 +1,74 @@
+package com.work.broker.service;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.work.broker.entity.ProcessedMessage;
+import com.work.broker.model.ProcessedMessagePage;
+import com.work.broker.repository.ProcessedMessageCursor;
+import com.work.broker.repository.ProcessedMessageFilter;
+import com.work.broker.repository.ProcessedMessageRepository;
+
+/**
+ * Read side of the deduplication table.
+ *
+ * Nothing here loads the whole table: pages are bounded by a maximum limit,
+ * and streaming walks the table one keyset page at a time so memory use stays
+ * constant. Each page is read in its own short-lived persistence context,
+ * so no long-running transaction or open cursor is held while the client reads.
+ */
+@Service
+public class ProcessedMessageQueryService {
+
+    private final ProcessedMessageRepository repository;
+    private final int maxPageSize;
+    private final int streamPageSize;
+
+    public ProcessedMessageQueryService(ProcessedMessageRepository repository,
+                                        @Value("${deduplication.query.max-page-size:1000}") int maxPageSize,
+                                        @Value("${deduplication.query.stream-page-size:500}") int streamPageSize) {
+        this.repository = repository;
+        this.maxPageSize = maxPageSize;
+        this.streamPageSize = streamPageSize;
+    }
+
+    /**
+     * @param cursor token from a previous page, or null for the first page
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public ProcessedMessagePage findPage(ProcessedMessageFilter filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        ProcessedMessageCursor after = cursor != null ? ProcessedMessageCursor.decode(cursor) : null;
+
+        List<ProcessedMessage> items = repository.findPage(filter, after, pageSize);
+        String nextCursor = items.size() == pageSize
+                ? ProcessedMessageCursor.after(items.get(items.size() - 1)).encode()
+                : null;
+        return new ProcessedMessagePage(items, pageSize, nextCursor);
+    }
+
+    /**
+     * Hand every matching row to the consumer, in keyset order.
+     *
+     * @return number of rows streamed
+     */
+    public long stream(ProcessedMessageFilter filter, Consumer<ProcessedMessage> consumer) {
+        long count = 0;
+        ProcessedMessageCursor after = null;
+        List<ProcessedMessage> page;
+        do {
+            page = repository.findPage(filter, after, streamPageSize);
+            for (ProcessedMessage message : page) {
+                consumer.accept(message);
+            }
+            count += page.size();
+            if (!page.isEmpty()) {
+                after = ProcessedMessageCursor.after(page.get(page.size() - 1));
+            }
+        } while (page.size() == streamPageSize);
+        return count;
+    }
+}
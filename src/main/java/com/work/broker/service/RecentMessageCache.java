@@ -0,0 +1,118 @@
+package com.work.broker.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local near-cache of recently seen (messageId, queue) pairs.
+ *
+ * A hit means the message was already claimed, so a redelivered duplicate
+ * is rejected without a round trip to the deduplication store. Misses always go
+ * to the store, so correctness only depends on invalidating entries that are
+ * released (allowReprocess). Entries expire after deduplication.near-cache.ttl-ms
+ * to bound staleness when another instance releases a message.
+ *
+ * Lookups are lock-free: every listener thread checks this cache on each
+ * delivery. Past deduplication.near-cache.size one thread at a time drops
+ * expired entries and then arbitrary ones down to 90% of the size, so
+ * eviction is approximate rather than least-recently-used.
+ */
+@Component
+public class RecentMessageCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>(1024);
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public RecentMessageCache(@Value("${deduplication.near-cache.size:100000}") int maxSize,
+                              @Value("${deduplication.near-cache.ttl-ms:60000}") long ttlMs) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMs * 1_000_000;
+    }
+
+    public boolean contains(String messageId, String queueName) {
+        Key key = new Key(messageId, queueName);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return false;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(key, entry);
+            return false;
+        }
+        return true;
+    }
+
+    public void put(String messageId, String queueName) {
+        put(messageId, queueName, null);
+    }
+
+    /**
+     * @param fingerprint content fingerprint claimed with the message, or null
+     */
+    public void put(String messageId, String queueName, String fingerprint) {
+        entries.put(new Key(messageId, queueName), new Entry(System.nanoTime() + ttlNanos, fingerprint));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * @return the fingerprint cached with the pair, or null
+     */
+    public String invalidate(String messageId, String queueName) {
+        Entry entry = entries.remove(new Key(messageId, queueName));
+        return entry != null ? entry.fingerprint : null;
+    }
+
+    /**
+     * @return queue -> fingerprint of the removed pairs that had one
+     */
+    public Map<String, String> invalidate(String messageId) {
+        Map<String, String> fingerprints = new HashMap<>();
+        for (Key key : entries.keySet()) {
+            if (key.messageId().equals(messageId)) {
+                Entry entry = entries.remove(key);
+                if (entry != null && entry.fingerprint != null) {
+                    fingerprints.put(key.queueName(), entry.fingerprint);
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+            int target = maxSize - maxSize / 10;
+            Iterator<Key> keys = entries.keySet().iterator();
+            while (entries.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private record Key(String messageId, String queueName) {
+    }
+
+    private record Entry(long expiresAt, String fingerprint) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.work.broker.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shared store on a Redis-protocol server (Redis, Valkey, KeyDB...).
+ *
+ * All instances consuming the same queue see the same state, and it survives
+ * restarts. tryClaim is a single SET key value NX PX ttl round trip: the
+ * first instance to set the key processes the message, every other gets a
+ * duplicate. Records expire after deduplication.redis.ttl, so cleanup is a no-op.
+ *
+ * Keys: {prefix}{messageId}:{queueName} -> status (':' and '\' in the ID escaped with '\')
+ *
+ * release and markAsFailed read the previous status (GETDEL, SET ... GET) to
+ * keep DeduplicationCounters in step, so the server must be Redis 6.2+ or
+ * compatible.
+ */
+@Component
+@ConditionalOnProperty(name = "deduplication.store", havingValue = "redis")
+@Slf4j
+public class RedisDeduplicationStore implements DeduplicationStore {
+
+    private final StringRedisTemplate redisTemplate;
+    private final DeduplicationCounters counters;
+    private final String keyPrefix;
+    private final Duration ttl;
+
+    public RedisDeduplicationStore(StringRedisTemplate redisTemplate,
+                                   DeduplicationCounters counters,
+                                   @Value("${deduplication.redis.key-prefix:dedup:}") String keyPrefix,
+                                   @Value("${deduplication.redis.ttl:7d}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.counters = counters;
+        this.keyPrefix = keyPrefix;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public boolean tryClaim(String messageId, String queueName, String messageType) {
+        Boolean claimed = redisTemplate.opsForValue().setIfAbsent(key(messageId, queueName), "PROCESSED", ttl);
+        if (Boolean.TRUE.equals(claimed)) {
+            counters.increment(queueName, "PROCESSED");
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean exists(String messageId, String queueName) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key(messageId, queueName)));
+    }
+
+    @Override
+    public boolean existsInAnyQueue(String messageId) {
+        return !keysOf(messageId).isEmpty();
+    }
+
+    @Override
+    public void markAsFailed(String messageId, String queueName, String messageType) {
+        String previous = redisTemplate.opsForValue().setGet(key(messageId, queueName), "FAILED", ttl);
+        if (previous != null) {
+            counters.decrement(queueName, previous);
+        }
+        counters.increment(queueName, "FAILED");
+    }
+
+    @Override
+    public void release(String messageId, String queueName) {
+        String status = redisTemplate.opsForValue().getAndDelete(key(messageId, queueName));
+        if (status != null) {
+            counters.decrement(queueName, status);
+        }
+    }
+
+    /**
+     * Needs a SCAN over the keyspace - intended for the admin endpoint only.
+     */
+    @Override
+    public void release(String messageId) {
+        String prefix = messagePrefix(messageId);
+        for (String key : keysOf(messageId)) {
+            String status = redisTemplate.opsForValue().getAndDelete(key);
+            if (status != null) {
+                counters.decrement(key.substring(prefix.length()), status);
+            }
+        }
+    }
+
+    @Override
+    public int deleteOlderThan(LocalDateTime expirationDate) {
+        log.info("Redis deduplication records expire by TTL ({}) - nothing to clean up", ttl);
+        return 0;
+    }
+
+    private String key(String messageId, String queueName) {
+        return messagePrefix(messageId) + queueName;
+    }
+
+    /**
+     * {prefix}{messageId}: with ':' and '\' in the ID escaped, so the prefix
+     * of one ID is never the prefix of another ID's keys.
+     */
+    private String messagePrefix(String messageId) {
+        return keyPrefix + messageId.replace("\\", "\\\\").replace(":", "\\:") + ":";
+    }
+
+    private List<String> keysOf(String messageId) {
+        List<String> keys = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(glob(messagePrefix(messageId)) + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(keys::add);
+        }
+        return keys;
+    }
+
+    /**
+     * Escape the glob metacharacters of a literal, so an ID such as "*" only
+     * matches its own keys.
+     */
+    static String glob(String literal) {
+        StringBuilder escaped = new StringBuilder(literal.length() + 8);
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
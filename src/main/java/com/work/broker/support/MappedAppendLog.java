@@ -0,0 +1,292 @@
+package com.work.broker.support;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only log of byte records in memory-mapped segment files, with a
+ * single committed read offset.
+ *
+ * Segment layout: a sequence of [int length][int crc32][payload] records.
+ * Length 0 means "no more records", -1 means "continue in the next segment".
+ * A record is written payload first and length last, and only becomes
+ * visible to readers after the write position is published, so a reader
+ * never sees a partial record.
+ *
+ * On open, the last segment is scanned to find the end of the valid records
+ * (a record torn by a crash fails its CRC and is discarded) and the read
+ * offset is loaded from the offset file. Segments before the committed
+ * offset are deleted.
+ *
+ * Appends are durable against a process crash as soon as append() returns
+ * (the data is in the page cache); with forceOnAppend they are also flushed
+ * to the device, surviving an OS crash at the cost of a sync per append.
+ */
+@Slf4j
+public final class MappedAppendLog implements AutoCloseable {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int END_OF_DATA = 0;
+    private static final int NEXT_SEGMENT = -1;
+    private static final String OFFSET_FILE = "offset";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceOnAppend;
+
+    private MappedByteBuffer writeBuffer;
+    private long writeSegment;
+    private volatile Position writePosition;
+
+    private final Object readLock = new Object();
+    private MappedByteBuffer readBuffer;
+    private long readSegment = -1;
+    private volatile Position committed;
+
+    public MappedAppendLog(Path directory, int segmentSize, boolean forceOnAppend) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.forceOnAppend = forceOnAppend;
+        try {
+            Files.createDirectories(directory);
+            committed = loadOffset();
+            writeSegment = Math.max(lastSegment(), committed.segment());
+            writeBuffer = map(writeSegment);
+            writePosition = new Position(writeSegment, recover(writeBuffer));
+            deleteSegmentsBefore(committed.segment());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open append log in " + directory, e);
+        }
+    }
+
+    /**
+     * Position of a record: segment number and byte offset inside it.
+     */
+    public record Position(long segment, int offset) implements Comparable<Position> {
+
+        @Override
+        public int compareTo(Position other) {
+            return segment != other.segment
+                    ? Long.compare(segment, other.segment)
+                    : Integer.compare(offset, other.offset);
+        }
+    }
+
+    /**
+     * Records read from the log and the position right after the last one.
+     */
+    public record Batch(List<byte[]> records, Position next) {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the record does not fit in a segment
+     */
+    public synchronized void append(byte[] payload) {
+        int size = HEADER_SIZE + payload.length;
+        if (size > segmentSize - Integer.BYTES) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds the segment size");
+        }
+        int offset = writePosition.offset();
+        if (offset + size > segmentSize - Integer.BYTES) {
+            writeBuffer.putInt(offset, NEXT_SEGMENT);
+            roll();
+            offset = 0;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        writeBuffer.put(offset + HEADER_SIZE, payload);
+        writeBuffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        writeBuffer.putInt(offset, payload.length);
+        if (forceOnAppend) {
+            writeBuffer.force(offset, size);
+        }
+        writePosition = new Position(writeSegment, offset + size);
+    }
+
+    /**
+     * Read up to max records starting at the given position. Only records
+     * that were completely appended before the call are returned.
+     */
+    public Batch read(Position from, int max) {
+        synchronized (readLock) {
+            List<byte[]> records = new ArrayList<>();
+            Position end = writePosition;
+            long segment = from.segment();
+            int offset = from.offset();
+
+            while (records.size() < max && new Position(segment, offset).compareTo(end) < 0) {
+                MappedByteBuffer buffer = readBuffer(segment);
+                int length = buffer.getInt(offset);
+                if (length == NEXT_SEGMENT) {
+                    segment++;
+                    offset = 0;
+                    continue;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(offset + HEADER_SIZE, payload);
+                records.add(payload);
+                offset += HEADER_SIZE + length;
+            }
+            return new Batch(records, new Position(segment, offset));
+        }
+    }
+
+    /**
+     * Count the records between the committed offset and the end of the log.
+     */
+    public long countUncommitted() {
+        long count = 0;
+        Position position = committed;
+        Batch batch;
+        do {
+            batch = read(position, 10_000);
+            count += batch.records().size();
+            position = batch.next();
+        } while (!batch.records().isEmpty());
+        return count;
+    }
+
+    public Position committed() {
+        return committed;
+    }
+
+    /**
+     * Persist the read offset and delete the segments before it.
+     */
+    public void commit(Position position) {
+        try {
+            Path temp = directory.resolve(OFFSET_FILE + ".tmp");
+            Files.writeString(temp, position.segment() + " " + position.offset(), StandardCharsets.UTF_8);
+            Files.move(temp, directory.resolve(OFFSET_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the append log offset", e);
+        }
+        long previousSegment = committed.segment();
+        committed = position;
+        if (position.segment() > previousSegment) {
+            deleteSegmentsBefore(position.segment());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        writeBuffer.force();
+    }
+
+    private void roll() {
+        writeBuffer.force();
+        writeSegment++;
+        try {
+            writeBuffer = map(writeSegment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create append log segment " + writeSegment, e);
+        }
+    }
+
+    private MappedByteBuffer readBuffer(long segment) {
+        if (segment != readSegment) {
+            try {
+                readBuffer = segment == writeSegment ? writeBuffer : map(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open append log segment " + segment, e);
+            }
+            readSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    /**
+     * Find the end of the valid records in a segment and clear anything after it.
+     */
+    private int recover(MappedByteBuffer buffer) {
+        int offset = 0;
+        while (offset + HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length == END_OF_DATA || length == NEXT_SEGMENT) {
+                break;
+            }
+            if (length < 0 || offset + HEADER_SIZE + length > segmentSize || !crcMatches(buffer, offset, length)) {
+                log.warn("Discarding torn record at offset {} of segment {}", offset, writeSegment);
+                for (int i = offset; i < segmentSize; i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                break;
+            }
+            offset += HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    private boolean crcMatches(MappedByteBuffer buffer, int offset, int length) {
+        byte[] payload = new byte[length];
+        buffer.get(offset + HEADER_SIZE, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(offset + Integer.BYTES);
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private Position loadOffset() throws IOException {
+        Path offsetFile = directory.resolve(OFFSET_FILE);
+        if (!Files.exists(offsetFile)) {
+            long first = firstSegment();
+            return new Position(first < 0 ? 0 : first, 0);
+        }
+        String[] parts = Files.readString(offsetFile, StandardCharsets.UTF_8).trim().split(" ");
+        return new Position(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    private long firstSegment() throws IOException {
+        return segments().stream().mapToLong(Long::longValue).min().orElse(-1);
+    }
+
+    private long lastSegment() throws IOException {
+        return segments().stream().mapToLong(Long::longValue).max().orElse(0);
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith("segment-") && name.endsWith(".log"))
+                    .map(name -> Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length())))
+                    .toList();
+        }
+    }
+
+    private void deleteSegmentsBefore(long segment) {
+        try {
+            for (long existing : segments()) {
+                if (existing < segment) {
+                    Files.deleteIfExists(segmentPath(existing));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete consumed append log segments: {}", e.getMessage());
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("segment-%010d.log", segment));
+    }
+}
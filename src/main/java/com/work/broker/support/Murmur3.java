@@ -0,0 +1,116 @@
+package com.work.broker.support;
+
+/**
+ * MurmurHash3 x64 128-bit (Austin Appleby's reference algorithm, public domain).
+ *
+ * Fast non-cryptographic hash for fingerprinting payloads: fine against
+ * accidental collisions, useless against crafted ones. hex() prints the
+ * 16 bytes in little-endian order, the same digest as Guava's murmur3_128.
+ */
+public final class Murmur3 {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private Murmur3() {
+    }
+
+    /**
+     * @return {h1, h2}
+     */
+    public static long[] hash128(byte[] data, int seed) {
+        int length = data.length;
+        int blocks = length / 16;
+        long h1 = seed & 0xffffffffL;
+        long h2 = seed & 0xffffffffL;
+
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLong(data, i * 16);
+            long k2 = getLong(data, i * 16 + 8);
+
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        // Tail: the last 0-15 bytes, little-endian
+        int tail = blocks * 16;
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = length - tail - 1; i >= 8; i--) {
+            k2 ^= (data[tail + i] & 0xffL) << ((i - 8) * 8);
+        }
+        for (int i = Math.min(length - tail, 8) - 1; i >= 0; i--) {
+            k1 ^= (data[tail + i] & 0xffL) << (i * 8);
+        }
+        if (length - tail > 8) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+        }
+        if (length - tail > 0) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[] {h1, h2};
+    }
+
+    /**
+     * 32 hex characters, seed 0.
+     */
+    public static String hex(byte[] data) {
+        long[] hash = hash128(data, 0);
+        StringBuilder hex = new StringBuilder(32);
+        appendLittleEndian(hex, hash[0]);
+        appendLittleEndian(hex, hash[1]);
+        return hex.toString();
+    }
+
+    private static void appendLittleEndian(StringBuilder hex, long value) {
+        for (int i = 0; i < 8; i++) {
+            int b = (int) (value >>> (i * 8)) & 0xff;
+            hex.append(Character.forDigit(b >>> 4, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+    }
+
+    private static long getLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xffL);
+        }
+        return value;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,24 @@
+package com.work.broker.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Helpers for the inner steps traced with the Observation API.
+ */
+public final class Observations {
+
+    private Observations() {
+    }
+
+    /**
+     * An observation under the current one; Observation.NOOP when there is
+     * none, so inner steps never start traces of their own.
+     */
+    public static Observation child(String name, String contextualName, ObservationRegistry registry) {
+        if (registry.getCurrentObservation() == null) {
+            return Observation.NOOP;
+        }
+        return Observation.createNotStarted(name, registry).contextualName(contextualName);
+    }
+}
@@ -0,0 +1,55 @@
+package com.work.broker.tracing;
+
+import java.lang.reflect.Type;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Times message (de)serialization as serialize / deserialize observations
+ * under the current one. Without a current observation it only delegates.
+ */
+public class ObservedMessageConverter implements SmartMessageConverter {
+
+    private final SmartMessageConverter delegate;
+    private final ObservationRegistry registry;
+
+    public ObservedMessageConverter(SmartMessageConverter delegate, ObservationRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        return serialize().observe(() -> delegate.toMessage(object, messageProperties));
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties, Type genericType)
+            throws MessageConversionException {
+        return serialize().observe(() -> delegate.toMessage(object, messageProperties, genericType));
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        return deserialize().observe(() -> delegate.fromMessage(message));
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) throws MessageConversionException {
+        return deserialize().observe(() -> delegate.fromMessage(message, conversionHint));
+    }
+
+    private Observation serialize() {
+        return Observations.child("messaging.serialize", "serialize", registry);
+    }
+
+    private Observation deserialize() {
+        return Observations.child("messaging.deserialize", "deserialize", registry);
+    }
+}
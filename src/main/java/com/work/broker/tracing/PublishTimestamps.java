@@ -0,0 +1,45 @@
+package com.work.broker.tracing;
+
+import java.util.Date;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+/**
+ * Publish time of a message, for the queue wait recorded on delivery.
+ *
+ * The AMQP timestamp property only carries whole seconds, so the publish
+ * time is also sent in milliseconds in the x-published-at header.
+ */
+public final class PublishTimestamps {
+
+    public static final String HEADER = "x-published-at";
+
+    private PublishTimestamps() {
+    }
+
+    /**
+     * Before-publish post processor for the RabbitTemplate.
+     */
+    public static Message stamp(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        long now = System.currentTimeMillis();
+        properties.setHeader(HEADER, now);
+        if (properties.getTimestamp() == null) {
+            properties.setTimestamp(new Date(now));
+        }
+        return message;
+    }
+
+    /**
+     * @return the publish time in epoch milliseconds, or null if unknown
+     */
+    public static Long publishedAt(MessageProperties properties) {
+        Object header = properties.getHeader(HEADER);
+        if (header instanceof Number millis) {
+            return millis.longValue();
+        }
+        Date timestamp = properties.getTimestamp();
+        return timestamp != null ? timestamp.getTime() : null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.work.broker.tracing;
+
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.support.micrometer.RabbitListenerObservation.DefaultRabbitListenerObservationConvention;
+import org.springframework.amqp.rabbit.support.micrometer.RabbitMessageReceiverContext;
+
+import io.micrometer.common.KeyValues;
+
+/**
+ * Listener observation convention: the default Spring AMQP tags plus the
+ * time the message waited in the queue (publish time to delivery) and the
+ * redelivered flag.
+ *
+ * The wait compares the producer's clock with the consumer's, so across
+ * hosts it is only as accurate as their clock sync.
+ */
+public class QueueWaitObservationConvention extends DefaultRabbitListenerObservationConvention {
+
+    public static final String QUEUE_WAIT = "messaging.rabbitmq.queue_wait_ms";
+    public static final String REDELIVERED = "messaging.rabbitmq.message.redelivered";
+
+    private static final String DELIVERED_AT = QueueWaitObservationConvention.class.getName() + ".deliveredAt";
+
+    @Override
+    public KeyValues getHighCardinalityKeyValues(RabbitMessageReceiverContext context) {
+        // Called on start and again on stop: the delivery time is taken once
+        long deliveredAt = context.computeIfAbsent(DELIVERED_AT, key -> System.currentTimeMillis());
+        MessageProperties properties = context.getCarrier().getMessageProperties();
+        KeyValues values = super.getHighCardinalityKeyValues(context)
+                .and(REDELIVERED, String.valueOf(properties.isRedelivered()));
+        Long publishedAt = PublishTimestamps.publishedAt(properties);
+        if (publishedAt != null) {
+            values = values.and(QUEUE_WAIT, String.valueOf(Math.max(0, deliveredAt - publishedAt)));
+        }
+        return values;
+    }
+}
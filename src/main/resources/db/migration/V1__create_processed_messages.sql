@@ -0,0 +1,16 @@
+-- Deduplication records: one row per processed message and queue (see ProcessedMessage).
+-- A fanout message is tracked once per queue with the same message_id.
+CREATE TABLE processed_messages (
+    message_id   VARCHAR(100) NOT NULL,
+    queue_name   VARCHAR(100) NOT NULL,
+    processed_at TIMESTAMP(6) NOT NULL,
+    status       VARCHAR(50),
+    message_type VARCHAR(500),
+    CONSTRAINT pk_processed_messages PRIMARY KEY (message_id, queue_name)
+);
+
+-- Keyset order (processed_at, message_id, queue_name), alone and behind each filter column
+CREATE INDEX idx_processed_at ON processed_messages (processed_at, message_id, queue_name);
+CREATE INDEX idx_queue_processed_at ON processed_messages (queue_name, processed_at, message_id);
+CREATE INDEX idx_status_processed_at ON processed_messages (status, processed_at, message_id, queue_name);
+CREATE INDEX idx_type_processed_at ON processed_messages (message_type, processed_at, message_id, queue_name);
@@ -0,0 +1,57 @@
+package com.work.broker.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import com.work.broker.producer.PublishRateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class QueueDepthMonitorTest {
+
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueueDepthMonitor monitor = new QueueDepthMonitor(amqpAdmin, mock(PublishRateLimiter.class),
+            mock(RabbitListenerEndpointRegistry.class), meterRegistry, List.of(new Queue("topic.queue.orders")));
+
+    @Test
+    void declaredQueuesGetGaugesThatFollowThePolledDepth() {
+        assertThat(gauge("rabbitmq.queue.depth", "topic.queue.orders")).isNaN();
+        assertThat(gauge("rabbitmq.queue.lag", "topic.queue.orders")).isNaN();
+
+        when(amqpAdmin.getQueueInfo("topic.queue.orders")).thenReturn(new QueueInformation("topic.queue.orders", 42, 1));
+        monitor.poll();
+
+        assertThat(gauge("rabbitmq.queue.depth", "topic.queue.orders")).isEqualTo(42.0);
+        assertThat(gauge("rabbitmq.queue.consume.rate", "topic.queue.orders")).isZero();
+    }
+
+    @Test
+    void unwatchRemovesTheGaugesOfADynamicQueue() {
+        monitor.watch("sub.audit", mock(SimpleMessageListenerContainer.class));
+        assertThat(meterRegistry.find("rabbitmq.queue.depth").tag("queue", "sub.audit").gauges()).hasSize(1);
+        assertThat(meterRegistry.find("rabbitmq.queue.drain").tag("queue", "sub.audit").gauges()).hasSize(1);
+
+        monitor.watch("sub.audit", mock(SimpleMessageListenerContainer.class));
+        assertThat(meterRegistry.find("rabbitmq.queue.depth").tag("queue", "sub.audit").gauges()).hasSize(1);
+
+        monitor.unwatch("sub.audit");
+        assertThat(meterRegistry.find("rabbitmq.queue.depth").tag("queue", "sub.audit").gauges()).isEmpty();
+        assertThat(meterRegistry.find("rabbitmq.queue.lag").tag("queue", "sub.audit").gauges()).isEmpty();
+        assertThat(meterRegistry.find("rabbitmq.queue.depth").tag("queue", "topic.queue.orders").gauges()).hasSize(1);
+    }
+
+    private double gauge(String name, String queue) {
+        return meterRegistry.get(name).tag("queue", queue).gauge().value();
+    }
+}
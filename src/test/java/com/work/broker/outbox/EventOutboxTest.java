@@ -0,0 +1,92 @@
+package com.work.broker.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.work.broker.model.EventMessage;
+import com.work.broker.support.MappedAppendLog;
+
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import tools.jackson.databind.json.JsonMapper;
+
+class EventOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+
+    @Test
+    void undecodableRecordIsSkippedAndTheRestOfTheBatchIsRelayed() throws InterruptedException {
+        try (MappedAppendLog log = new MappedAppendLog(directory, 1024 * 1024, false)) {
+            log.append("not an outbox entry".getBytes(StandardCharsets.UTF_8));
+        }
+        confirmEveryPublish();
+        EventOutbox outbox = outbox();
+        outbox.start();
+        try {
+            outbox.append(new OutboxEntry("events.topic", "orders.created", null,
+                    EventMessage.builder().id("m1").build(), null));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((long) outbox.getStats().get("relayed") < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertThat(outbox.getStats())
+                    .containsEntry("relayed", 2L)
+                    .containsEntry("backlog", 0L)
+                    .containsEntry("failedBatches", 0L);
+            verify(rabbitTemplate, times(1)).convertAndSend(eq("events.topic"), eq("orders.created"),
+                    argThat(message -> ((EventMessage) message).getId().equals("m1")),
+                    any(MessagePostProcessor.class), any(CorrelationData.class));
+        } finally {
+            outbox.stop();
+        }
+    }
+
+    private EventOutbox outbox() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        EventOutbox outbox = new EventOutbox(rabbitTemplate, JsonMapper.builder().build(),
+                beans.getBeanProvider(Tracer.class), beans.getBeanProvider(Propagator.class));
+        ReflectionTestUtils.setField(outbox, "enabled", true);
+        ReflectionTestUtils.setField(outbox, "directory", directory);
+        ReflectionTestUtils.setField(outbox, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(outbox, "batchSize", 500);
+        ReflectionTestUtils.setField(outbox, "confirmTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(outbox, "retryDelayMs", 50L);
+        ReflectionTestUtils.setField(outbox, "maxBacklog", 100L);
+        return outbox;
+    }
+
+    /** Run invoke() callbacks against the template and ack every publish immediately. */
+    private void confirmEveryPublish() {
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> invocation
+                .<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+        doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(4).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).convertAndSend(any(String.class), any(String.class), any(Object.class),
+                any(MessagePostProcessor.class), any(CorrelationData.class));
+    }
+}
@@ -0,0 +1,106 @@
+package com.work.broker.producer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionBlockedEvent;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+import org.springframework.amqp.rabbit.connection.ConnectionUnblockedEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.rabbitmq.client.ShutdownListener;
+import com.work.broker.routing.TopicRoutingTable;
+
+class PublishRateLimiterTest {
+
+    private final CachingConnectionFactory publisherFactory = mock(CachingConnectionFactory.class);
+    private final PublishRateLimiter limiter;
+    private final ConnectionListener publisherListener;
+
+    PublishRateLimiterTest() {
+        limiter = new PublishRateLimiter(new TopicRoutingTable(List.of(), "events.topic"), List.of(),
+                publisherFactory, "events.topic");
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "permitsPerSecond", 1000.0);
+        ReflectionTestUtils.setField(limiter, "burst", 1000.0);
+        ReflectionTestUtils.setField(limiter, "minFactor", 0.05);
+        ReflectionTestUtils.setField(limiter, "queueDepthHigh", 10_000L);
+        ReflectionTestUtils.setField(limiter, "queueDepthMax", 100_000L);
+        ReflectionTestUtils.setField(limiter, "maxKeys", 100);
+        ArgumentCaptor<ConnectionListener> listener = ArgumentCaptor.forClass(ConnectionListener.class);
+        verify(publisherFactory).addConnectionListener(listener.capture());
+        publisherListener = listener.getValue();
+    }
+
+    @Test
+    void blockedPublisherConnectionRejectsUntilUnblocked() {
+        Connection publisher = connection();
+        publisherListener.onCreate(publisher);
+
+        limiter.onConnectionBlocked(new ConnectionBlockedEvent(publisher, "low on memory"));
+        assertThatThrownBy(this::acquire)
+                .isInstanceOf(PublishRateLimitedException.class)
+                .hasMessageContaining("low on memory");
+
+        limiter.onConnectionUnblocked(new ConnectionUnblockedEvent(publisher));
+        assertThatCode(this::acquire).doesNotThrowAnyException();
+    }
+
+    @Test
+    void consumerConnectionBlocksAreIgnored() {
+        Connection consumer = connection();
+
+        limiter.onConnectionBlocked(new ConnectionBlockedEvent(consumer, "low on memory"));
+
+        assertThatCode(this::acquire).doesNotThrowAnyException();
+    }
+
+    @Test
+    void unblockOfOneConnectionKeepsTheOtherBlocked() {
+        Connection first = connection();
+        Connection second = connection();
+        publisherListener.onCreate(first);
+        publisherListener.onCreate(second);
+
+        limiter.onConnectionBlocked(new ConnectionBlockedEvent(first, "disk"));
+        limiter.onConnectionBlocked(new ConnectionBlockedEvent(second, "disk"));
+        limiter.onConnectionUnblocked(new ConnectionUnblockedEvent(first));
+
+        assertThatThrownBy(this::acquire).isInstanceOf(PublishRateLimitedException.class);
+        assertThat(limiter.getStats()).containsEntry("blockedConnections", 1);
+    }
+
+    @Test
+    void closedConnectionNoLongerBlocks() {
+        Connection publisher = connection();
+        publisherListener.onCreate(publisher);
+        ArgumentCaptor<ShutdownListener> shutdown = ArgumentCaptor.forClass(ShutdownListener.class);
+        verify(publisher.getDelegate()).addShutdownListener(shutdown.capture());
+
+        limiter.onConnectionBlocked(new ConnectionBlockedEvent(publisher, "disk"));
+        shutdown.getValue().shutdownCompleted(null);
+
+        assertThatCode(this::acquire).doesNotThrowAnyException();
+    }
+
+    private void acquire() {
+        limiter.acquire("events.fanout", "");
+    }
+
+    private static Connection connection() {
+        Connection connection = mock(Connection.class);
+        com.rabbitmq.client.Connection delegate = mock(com.rabbitmq.client.Connection.class);
+        when(connection.getDelegate()).thenReturn(delegate);
+        return connection;
+    }
+}
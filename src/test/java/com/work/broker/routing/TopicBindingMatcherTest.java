@@ -0,0 +1,69 @@
+package com.work.broker.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TopicBindingMatcherTest {
+
+    @Test
+    void hashMatchesZeroWords() {
+        TopicBindingMatcher matcher = matcher("order.#", "#.error");
+
+        assertThat(queues(matcher, "order")).containsExactly("order.#");
+        assertThat(queues(matcher, "error")).containsExactly("#.error");
+        assertThat(queues(matcher, "order.created.v2")).containsExactly("order.#");
+    }
+
+    @Test
+    void hashBetweenWordsMatchesAnyNumberOfWordsInBetween() {
+        TopicBindingMatcher matcher = matcher("a.#.b");
+
+        assertThat(queues(matcher, "a.b")).containsExactly("a.#.b");
+        assertThat(queues(matcher, "a.x.b")).containsExactly("a.#.b");
+        assertThat(queues(matcher, "a.x.y.b")).containsExactly("a.#.b");
+        assertThat(queues(matcher, "a.b.b")).containsExactly("a.#.b");
+        assertThat(queues(matcher, "a.x")).isEmpty();
+        assertThat(queues(matcher, "x.a.b")).isEmpty();
+    }
+
+    @Test
+    void starNeedsExactlyOneWord() {
+        TopicBindingMatcher matcher = matcher("*", "order.*");
+
+        assertThat(queues(matcher, "")).isEmpty();
+        assertThat(queues(matcher, "order")).containsExactly("*");
+        assertThat(queues(matcher, "order.created")).containsExactly("order.*");
+        assertThat(queues(matcher, "order.created.v2")).isEmpty();
+    }
+
+    @Test
+    void loneHashMatchesEveryRoutingKey() {
+        TopicBindingMatcher matcher = matcher("#");
+
+        assertThat(queues(matcher, "")).containsExactly("#");
+        assertThat(queues(matcher, "order")).containsExactly("#");
+        assertThat(queues(matcher, "order.created.v2")).containsExactly("#");
+    }
+
+    @Test
+    void routingKeyReachesEveryMatchingBindingOnce() {
+        TopicBindingMatcher matcher = matcher("#", "order.#", "order.*", "*.created", "payment.*");
+
+        assertThat(queues(matcher, "order.created"))
+                .containsExactlyInAnyOrder("#", "order.#", "order.*", "*.created");
+    }
+
+    /** One binding per pattern, with the pattern as the queue name. */
+    private static TopicBindingMatcher matcher(String... patterns) {
+        return new TopicBindingMatcher(List.of(patterns).stream()
+                .map(pattern -> new RouteBinding(pattern, pattern))
+                .toList());
+    }
+
+    private static List<String> queues(TopicBindingMatcher matcher, String routingKey) {
+        return matcher.match(routingKey).stream().map(RouteBinding::queue).toList();
+    }
+}
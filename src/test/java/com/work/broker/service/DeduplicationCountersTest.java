@@ -0,0 +1,48 @@
+package com.work.broker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.work.broker.repository.ProcessedMessageRepository;
+
+class DeduplicationCountersTest {
+
+    private final ProcessedMessageRepository repository = mock(ProcessedMessageRepository.class);
+    private final DeduplicationCounters counters = new DeduplicationCounters(repository, "jpa");
+
+    @Test
+    void reconcileSetsTheDatabaseCounts() {
+        counters.increment("orders", "PROCESSED");
+        counters.increment("orders", "FAILED");
+        counters.increment("payments", "PROCESSED");
+        when(repository.countByQueueNameAndStatus()).thenReturn(List.<Object[]>of(
+                new Object[] {"orders", "PROCESSED", 7L},
+                new Object[] {"audit", null, 2L}));
+
+        counters.reconcile();
+
+        assertThat(counters.getCountsByQueue()).isEqualTo(Map.of(
+                "orders", Map.of("PROCESSED", 7L, "FAILED", 0L),
+                "payments", Map.of("PROCESSED", 0L),
+                "audit", Map.of("UNKNOWN", 2L)));
+        assertThat(counters.getTotal()).isEqualTo(9);
+        assertThat(counters.getLastReconciledAt()).isNotNull();
+    }
+
+    @Test
+    void reconcileIsSkippedForOtherStores() {
+        DeduplicationCounters memoryCounters = new DeduplicationCounters(repository, "memory");
+        memoryCounters.increment("orders", "PROCESSED");
+
+        memoryCounters.reconcile();
+
+        assertThat(memoryCounters.getCount("orders")).isEqualTo(1);
+        assertThat(memoryCounters.getLastReconciledAt()).isNull();
+    }
+}
@@ -0,0 +1,123 @@
+package com.work.broker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpIOException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import com.work.broker.logging.MessageLog;
+import com.work.broker.model.SubscriptionRequest;
+import com.work.broker.monitoring.QueueDepthMonitor;
+import com.work.broker.routing.TopicRoutingTable;
+
+class DynamicSubscriptionServiceTest {
+
+    private static final String QUEUE = "topic.queue.webhooks";
+
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+    private final SimpleRabbitListenerContainerFactory containerFactory = mock(SimpleRabbitListenerContainerFactory.class);
+    private final SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+    private final QueueDepthMonitor queueDepthMonitor = mock(QueueDepthMonitor.class);
+    private final TopicRoutingTable routingTable = new TopicRoutingTable(List.of(), "events.topic");
+
+    private final DynamicSubscriptionService service = new DynamicSubscriptionService(amqpAdmin, containerFactory,
+            mock(MessageConverter.class), mock(MessageDeduplicationService.class), routingTable,
+            mock(MessageLog.class), queueDepthMonitor, List.of(new Queue("topic.queue.orders")),
+            "events.topic", "events.fanout");
+
+    DynamicSubscriptionServiceTest() {
+        when(containerFactory.createListenerContainer()).thenReturn(container);
+    }
+
+    @Test
+    void failedStartRollsBackTheQueueAndBindings() {
+        doThrow(new IllegalStateException("no connection")).when(container).start();
+
+        assertThatThrownBy(() -> service.subscribe(request())).hasMessage("no connection");
+
+        verify(container).destroy();
+        verify(amqpAdmin).removeBinding(any(Binding.class));
+        verify(amqpAdmin).deleteQueue(QUEUE);
+        verify(queueDepthMonitor).unwatch(QUEUE);
+        assertThat(routingTable.getBindings()).isEmpty();
+        assertThat(service.getSubscriptions()).isEmpty();
+    }
+
+    @Test
+    void failedSubscribeKeepsAQueueThatAlreadyExisted() {
+        when(amqpAdmin.getQueueInfo(QUEUE)).thenReturn(new QueueInformation(QUEUE, 5, 0));
+        doThrow(new AmqpIOException(new IOException("bind refused")))
+                .when(amqpAdmin).declareBinding(any(Binding.class));
+
+        assertThatThrownBy(() -> service.subscribe(request())).isInstanceOf(AmqpIOException.class);
+
+        verify(amqpAdmin).removeBinding(any(Binding.class));
+        verify(amqpAdmin, never()).deleteQueue(anyString());
+        assertThat(service.getSubscriptions()).isEmpty();
+    }
+
+    @Test
+    void cleanupFailuresAreSuppressedIntoTheCause() {
+        doThrow(new IllegalStateException("no connection")).when(container).start();
+        doThrow(new AmqpIOException(new IOException("channel closed"))).when(amqpAdmin).deleteQueue(QUEUE);
+
+        assertThatThrownBy(() -> service.subscribe(request()))
+                .hasMessage("no connection")
+                .satisfies(e -> assertThat(e.getSuppressed()).hasSize(1));
+
+        assertThat(service.getSubscriptions()).isEmpty();
+    }
+
+    @Test
+    void declaredQueuesCannotBeSubscribed() {
+        SubscriptionRequest request = request();
+        request.setQueueName("topic.queue.orders");
+
+        assertThatThrownBy(() -> service.subscribe(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("topic.queue.orders");
+
+        verify(amqpAdmin, never()).declareQueue(any(Queue.class));
+        assertThat(service.unsubscribe("topic.queue.orders", true)).isFalse();
+        verify(amqpAdmin, never()).deleteQueue(anyString());
+    }
+
+    @Test
+    void unsubscribeDestroysTheContainer() {
+        service.subscribe(request());
+        assertThat(routingTable.getBindings()).hasSize(1);
+
+        assertThat(service.unsubscribe(QUEUE, true)).isTrue();
+
+        verify(container).destroy();
+        verify(amqpAdmin).deleteQueue(QUEUE);
+        assertThat(routingTable.getBindings()).isEmpty();
+        assertThat(service.unsubscribe(QUEUE, true)).isFalse();
+    }
+
+    private static SubscriptionRequest request() {
+        return SubscriptionRequest.builder()
+                .queueName(QUEUE)
+                .exchangeType("topic")
+                .routingKey("order.#")
+                .build();
+    }
+}
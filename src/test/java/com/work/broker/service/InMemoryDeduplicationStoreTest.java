@@ -0,0 +1,101 @@
+package com.work.broker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class InMemoryDeduplicationStoreTest {
+
+    private final DeduplicationCounters counters = new DeduplicationCounters(null, "memory");
+    private final InMemoryDeduplicationStore store = new InMemoryDeduplicationStore(counters, Duration.ofDays(7));
+
+    @Test
+    void claimsEachMessageOncePerQueue() {
+        assertThat(store.tryClaim("m1", "orders", "order.created")).isTrue();
+        assertThat(store.tryClaim("m1", "orders", "order.created")).isFalse();
+        assertThat(store.tryClaim("m1", "audit", "order.created")).isTrue();
+
+        assertThat(store.exists("m1", "orders")).isTrue();
+        assertThat(store.existsInAnyQueue("m1")).isTrue();
+        assertThat(store.existsInAnyQueue("m2")).isFalse();
+        assertThat(counters.getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    void releaseAllowsReprocessingAndDecrementsCounters() {
+        store.tryClaim("m1", "orders", "order.created");
+        store.tryClaim("m1", "audit", "order.created");
+        store.tryClaim("m2", "orders", "order.created");
+
+        store.release("m1", "orders");
+        assertThat(counters.getCount("orders")).isEqualTo(1);
+        assertThat(store.tryClaim("m1", "orders", "order.created")).isTrue();
+
+        store.release("m1");
+        assertThat(store.existsInAnyQueue("m1")).isFalse();
+        assertThat(counters.getCountsByQueue()).isEqualTo(Map.of(
+                "orders", Map.of("PROCESSED", 1L),
+                "audit", Map.of("PROCESSED", 0L)));
+    }
+
+    @Test
+    void messageIdsAreMatchedExactly() {
+        store.tryClaim("a:b", "orders", "order.created");
+        store.tryClaim("a", "b:orders", "order.created");
+
+        store.release("a");
+
+        assertThat(store.exists("a:b", "orders")).isTrue();
+        assertThat(store.existsInAnyQueue("a")).isFalse();
+        assertThat(store.existsInAnyQueue("a:b")).isTrue();
+    }
+
+    @Test
+    void releasingAnUnknownMessageLeavesCountersAlone() {
+        store.tryClaim("m1", "orders", "order.created");
+
+        store.release("m2", "orders");
+        store.release("m2");
+
+        assertThat(counters.getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    void markAsFailedMovesTheRecordToFailed() {
+        store.tryClaim("m1", "orders", "order.created");
+
+        store.markAsFailed("m1", "orders", "order.created");
+
+        assertThat(counters.getCountsByStatus()).isEqualTo(Map.of("PROCESSED", 0L, "FAILED", 1L));
+        assertThat(store.tryClaim("m1", "orders", "order.created")).isFalse();
+    }
+
+    @Test
+    void deleteOlderThanRemovesOldRecordsAndDecrementsCounters() {
+        store.tryClaim("m1", "orders", "order.created");
+        store.markAsFailed("m2", "orders", "order.created");
+
+        assertThat(store.deleteOlderThan(LocalDateTime.now().minusMinutes(1))).isZero();
+        assertThat(store.deleteOlderThan(LocalDateTime.now().plusMinutes(1))).isEqualTo(2);
+
+        assertThat(store.exists("m1", "orders")).isFalse();
+        assertThat(counters.getTotal()).isZero();
+    }
+
+    @Test
+    void expiredRecordsCanBeClaimedAgain() {
+        InMemoryDeduplicationStore expiring = new InMemoryDeduplicationStore(counters, Duration.ZERO);
+
+        assertThat(expiring.tryClaim("m1", "orders", "order.created")).isTrue();
+        assertThat(expiring.exists("m1", "orders")).isFalse();
+        assertThat(expiring.tryClaim("m1", "orders", "order.created")).isTrue();
+        assertThat(counters.getCount("orders")).isEqualTo(1);
+
+        expiring.evictExpired();
+        assertThat(counters.getCount("orders")).isZero();
+    }
+}
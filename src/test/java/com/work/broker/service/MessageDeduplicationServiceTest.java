@@ -0,0 +1,120 @@
+package com.work.broker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.work.broker.lifecycle.InFlightMessages;
+import com.work.broker.model.EventMessage;
+
+import io.micrometer.observation.ObservationRegistry;
+
+class MessageDeduplicationServiceTest {
+
+    private static final String QUEUE = "topic.queue.orders";
+
+    private final DeduplicationCounters counters = new DeduplicationCounters(null, "memory");
+    private final InFlightMessages inFlightMessages = new InFlightMessages();
+    private final FingerprintWindow fingerprintWindow = new FingerprintWindow(Duration.ofMinutes(10), 1000);
+    private final MessageDeduplicationService service = new MessageDeduplicationService(
+            new InMemoryDeduplicationStore(counters, Duration.ofDays(7)),
+            new RecentMessageCache(1000, 60_000),
+            counters,
+            ObservationRegistry.NOOP,
+            fingerprintWindow,
+            inFlightMessages);
+
+    MessageDeduplicationServiceTest() {
+        ReflectionTestUtils.setField(service, "dedupKey", "fingerprint");
+    }
+
+    @Test
+    void resendWithANewIdIsADuplicateOfContent() {
+        assertThat(service.tryProcess(event("m1", "pay 10"), null, QUEUE)).isTrue();
+
+        assertThat(service.tryProcess(event("m2", "pay 10"), null, QUEUE)).isFalse();
+        assertThat(service.isDuplicate("m2", QUEUE)).isFalse();
+        assertThat(counters.getCount(QUEUE)).isEqualTo(1);
+    }
+
+    @Test
+    void resendAfterAFailedHandlerIsProcessed() throws Throwable {
+        inListener(() -> {
+            assertThat(service.tryProcess(event("m1", "pay 10"), null, QUEUE)).isTrue();
+            // The handler failed
+            service.allowReprocess("m1", QUEUE);
+            return null;
+        });
+
+        assertThat(service.tryProcess(event("m2", "pay 10"), null, QUEUE)).isTrue();
+    }
+
+    @Test
+    void resendAfterAnAbandonedHandlerIsProcessed() throws Throwable {
+        List<InFlightMessages.Delivery> abandoned = inListener(() -> {
+            assertThat(service.tryProcess(event("m1", "pay 10"), null, QUEUE)).isTrue();
+            return inFlightMessages.snapshot();
+        });
+
+        // GracefulDrain releases the claims of handlers still running at its deadline
+        abandoned.get(0).getClaims().forEach(service::allowReprocess);
+
+        assertThat(service.tryProcess(event("m2", "pay 10"), null, QUEUE)).isTrue();
+    }
+
+    @Test
+    void releaseOutsideAListenerUsesTheNearCache() {
+        assertThat(service.tryProcess(event("m1", "pay 10"), null, QUEUE)).isTrue();
+
+        service.allowReprocess("m1", QUEUE);
+
+        assertThat(service.tryProcess(event("m2", "pay 10"), null, QUEUE)).isTrue();
+    }
+
+    @Test
+    void redeliveredIdDoesNotClaimItsFingerprint() {
+        assertThat(service.tryProcess(event("m1", "pay 10"), null, QUEUE)).isTrue();
+
+        assertThat(service.tryProcess(event("m1", "pay 20"), null, QUEUE)).isFalse();
+        assertThat(service.tryProcess(event("m2", "pay 20"), null, QUEUE)).isTrue();
+    }
+
+    @Test
+    void releasingOneMessageKeepsAnotherMessagesFingerprint() {
+        assertThat(service.tryProcess(event("m1", "pay 10"), null, QUEUE)).isTrue();
+        assertThat(service.tryProcess(event("m2", "pay 10"), null, QUEUE)).isFalse();
+
+        service.allowReprocess("m2", QUEUE);
+
+        assertThat(service.tryProcess(event("m3", "pay 10"), null, QUEUE)).isFalse();
+    }
+
+    /**
+     * Run the body as a listener invocation, with the InFlightMessages advice around it.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T inListener(Callable<T> body) throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[0]);
+        when(invocation.proceed()).thenAnswer(call -> body.call());
+        return (T) inFlightMessages.invoke(invocation);
+    }
+
+    private static EventMessage event(String id, String content) {
+        return EventMessage.builder()
+                .id(id)
+                .key("order-1")
+                .type("payment.requested")
+                .content(content)
+                .source("checkout")
+                .build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.work.broker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class RecentMessageCacheTest {
+
+    @Test
+    void remembersPairsUntilInvalidated() {
+        RecentMessageCache cache = new RecentMessageCache(100, 60_000);
+        cache.put("m1", "orders");
+        cache.put("m1", "audit");
+        cache.put("m1:x", "orders");
+
+        assertThat(cache.contains("m1", "orders")).isTrue();
+        assertThat(cache.contains("m1", "payments")).isFalse();
+
+        cache.invalidate("m1", "orders");
+        assertThat(cache.contains("m1", "orders")).isFalse();
+
+        cache.invalidate("m1");
+        assertThat(cache.contains("m1", "audit")).isFalse();
+        assertThat(cache.contains("m1:x", "orders")).isTrue();
+    }
+
+    @Test
+    void entriesExpire() {
+        RecentMessageCache cache = new RecentMessageCache(100, 0);
+        cache.put("m1", "orders");
+
+        assertThat(cache.contains("m1", "orders")).isFalse();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void sizeStaysBounded() {
+        RecentMessageCache cache = new RecentMessageCache(100, 60_000);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("m" + i, "orders");
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+}
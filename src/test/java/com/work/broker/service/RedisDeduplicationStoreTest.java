@@ -0,0 +1,52 @@
+package com.work.broker.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+class RedisDeduplicationStoreTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> values = mock(ValueOperations.class);
+    private final RedisDeduplicationStore store = new RedisDeduplicationStore(redisTemplate,
+            new DeduplicationCounters(null, "redis"), "dedup:", Duration.ofDays(7));
+
+    @SuppressWarnings("unchecked")
+    RedisDeduplicationStoreTest() {
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(mock(Cursor.class));
+    }
+
+    @Test
+    void globMetacharactersInTheIdAreEscaped() {
+        store.release("a*?[x]\\");
+
+        ArgumentCaptor<ScanOptions> options = ArgumentCaptor.forClass(ScanOptions.class);
+        verify(redisTemplate).scan(options.capture());
+        assertThat(options.getValue().getPattern()).isEqualTo("dedup:a\\*\\?\\[x\\]\\\\\\\\:*");
+    }
+
+    @Test
+    void separatorInTheIdIsEscapedInKeys() {
+        store.release("a:b", "orders");
+        store.release("a");
+
+        verify(values).getAndDelete("dedup:a\\:b:orders");
+        ArgumentCaptor<ScanOptions> options = ArgumentCaptor.forClass(ScanOptions.class);
+        verify(redisTemplate).scan(options.capture());
+        // "dedup:a:*" cannot match "dedup:a\:b:orders"
+        assertThat(options.getValue().getPattern()).isEqualTo("dedup:a:*");
+    }
+}
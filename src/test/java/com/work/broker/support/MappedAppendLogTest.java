@@ -0,0 +1,146 @@
+package com.work.broker.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedAppendLogTest {
+
+    /** Two 20-byte records (8-byte header each) fit in a segment; the third rolls over. */
+    private static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendsAcrossASegmentBoundaryAreReadInOrder() throws IOException {
+        try (MappedAppendLog log = open()) {
+            for (int i = 0; i < 5; i++) {
+                log.append(record(i));
+            }
+
+            MappedAppendLog.Batch batch = log.read(log.committed(), 10);
+
+            assertThat(strings(batch)).containsExactly(text(0), text(1), text(2), text(3), text(4));
+            assertThat(batch.next()).isEqualTo(new MappedAppendLog.Position(2, 28));
+            assertThat(segmentFiles()).hasSize(3);
+            assertThat(log.countUncommitted()).isEqualTo(5);
+        }
+    }
+
+    @Test
+    void readStopsAtMaxAndResumesFromTheReturnedPosition() {
+        try (MappedAppendLog log = open()) {
+            for (int i = 0; i < 3; i++) {
+                log.append(record(i));
+            }
+
+            MappedAppendLog.Batch first = log.read(log.committed(), 2);
+            MappedAppendLog.Batch second = log.read(first.next(), 2);
+
+            assertThat(strings(first)).containsExactly(text(0), text(1));
+            assertThat(strings(second)).containsExactly(text(2));
+        }
+    }
+
+    @Test
+    void truncatedTailIsDiscardedOnReopen() throws IOException {
+        try (MappedAppendLog log = open()) {
+            log.append(record(0));
+            log.append(record(1));
+        }
+        try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+            channel.truncate(28 + 12);
+        }
+
+        try (MappedAppendLog log = open()) {
+            assertThat(strings(log.read(log.committed(), 10))).containsExactly(text(0));
+
+            log.append(record(2));
+
+            assertThat(strings(log.read(log.committed(), 10))).containsExactly(text(0), text(2));
+        }
+    }
+
+    @Test
+    void garbageTailIsDiscardedOnReopen() throws IOException {
+        try (MappedAppendLog log = open()) {
+            log.append(record(0));
+        }
+        try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 20, 1, 2, 3, 4, 'g', 'a', 'r', 'b', 'a', 'g', 'e'}), 28);
+        }
+
+        try (MappedAppendLog log = open()) {
+            assertThat(log.countUncommitted()).isEqualTo(1);
+
+            log.append(record(1));
+            log.append(record(2));
+
+            assertThat(strings(log.read(log.committed(), 10))).containsExactly(text(0), text(1), text(2));
+        }
+    }
+
+    @Test
+    void commitDeletesConsumedSegmentsAndSurvivesReopen() throws IOException {
+        MappedAppendLog.Position afterFourth;
+        try (MappedAppendLog log = open()) {
+            for (int i = 0; i < 5; i++) {
+                log.append(record(i));
+            }
+            afterFourth = log.read(log.committed(), 4).next();
+
+            log.commit(afterFourth);
+
+            assertThat(afterFourth).isEqualTo(new MappedAppendLog.Position(1, 56));
+            assertThat(segmentFiles()).containsExactly(
+                    segment(1).getFileName().toString(), segment(2).getFileName().toString());
+            assertThat(log.countUncommitted()).isEqualTo(1);
+        }
+
+        try (MappedAppendLog log = open()) {
+            assertThat(log.committed()).isEqualTo(afterFourth);
+            assertThat(strings(log.read(log.committed(), 10))).containsExactly(text(4));
+        }
+    }
+
+    private MappedAppendLog open() {
+        return new MappedAppendLog(directory, SEGMENT_SIZE, false);
+    }
+
+    private Path segment(long segment) {
+        return directory.resolve(String.format("segment-%010d.log", segment));
+    }
+
+    private List<String> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith("segment-"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static byte[] record(int i) {
+        return text(i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(int i) {
+        return String.format("record-%013d", i);
+    }
+
+    private static List<String> strings(MappedAppendLog.Batch batch) {
+        return batch.records().stream().map(bytes -> new String(bytes, StandardCharsets.UTF_8)).toList();
+    }
+}
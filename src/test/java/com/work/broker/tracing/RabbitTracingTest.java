@@ -0,0 +1,159 @@
+package com.work.broker.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.micrometer.RabbitListenerObservation;
+import org.springframework.amqp.rabbit.support.micrometer.RabbitMessageReceiverContext;
+import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
+import org.springframework.context.support.GenericApplicationContext;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.work.broker.model.EventMessage;
+
+import io.micrometer.observation.Observation;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+/**
+ * Trace propagation through the RabbitTemplate and listener observations
+ * as configured in RabbitMQConfig, against a mocked channel.
+ */
+class RabbitTracingTest {
+
+    private final TracingTestSupport tracing = new TracingTestSupport();
+    private final ObservedMessageConverter converter =
+            new ObservedMessageConverter(new JacksonJsonMessageConverter(), tracing.registry);
+
+    @AfterEach
+    void close() {
+        tracing.close();
+    }
+
+    @Test
+    void publishContinuesTheCurrentTraceAndCarriesTraceparent() throws Exception {
+        Channel channel = mock(Channel.class);
+        RabbitTemplate template = template(channel);
+
+        Observation parent = Observation.start("http", tracing.registry);
+        try (Observation.Scope scope = parent.openScope()) {
+            template.convertAndSend("events.topic", "order.created", event());
+        } finally {
+            parent.stop();
+        }
+
+        ArgumentCaptor<AMQP.BasicProperties> properties = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        verify(channel).basicPublish(eq("events.topic"), eq("order.created"), anyBoolean(),
+                properties.capture(), any(byte[].class));
+        Map<String, Object> headers = properties.getValue().getHeaders();
+
+        SpanData http = tracing.span("http");
+        SpanData send = tracing.spans().stream()
+                .filter(span -> span.getKind() == SpanKind.PRODUCER)
+                .findFirst()
+                .orElseThrow();
+        SpanData serialize = tracing.span("serialize");
+
+        assertThat(send.getTraceId()).isEqualTo(http.getTraceId());
+        assertThat(send.getParentSpanId()).isEqualTo(http.getSpanId());
+        assertThat(serialize.getParentSpanId()).isEqualTo(http.getSpanId());
+        assertThat(String.valueOf(headers.get("traceparent")))
+                .isEqualTo("00-" + send.getTraceId() + "-" + send.getSpanId() + "-01");
+        assertThat(headers.get(PublishTimestamps.HEADER)).isInstanceOf(Long.class);
+    }
+
+    @Test
+    void deliveryContinuesTheProducerTraceAndRecordsQueueWait() {
+        Observation parent = Observation.start("producer", tracing.registry);
+        Map<String, String> carrier = new HashMap<>();
+        try (Observation.Scope scope = parent.openScope()) {
+            tracing.propagator.inject(tracing.tracer.currentTraceContext().context(), carrier, Map::put);
+        } finally {
+            parent.stop();
+        }
+
+        MessageProperties properties = new MessageProperties();
+        properties.setConsumerQueue("orders.queue");
+        properties.setHeader("traceparent", carrier.get("traceparent"));
+        properties.setHeader(PublishTimestamps.HEADER, System.currentTimeMillis() - 1500);
+        Message message = converter.toMessage(event(), properties);
+
+        RabbitListenerObservation.LISTENER_OBSERVATION
+                .observation(null, new QueueWaitObservationConvention(),
+                        () -> new RabbitMessageReceiverContext(message, "orders-listener"), tracing.registry)
+                .observe(() -> converter.fromMessage(message));
+
+        SpanData producer = tracing.span("producer");
+        SpanData receive = tracing.spans().stream()
+                .filter(span -> span.getKind() == SpanKind.CONSUMER)
+                .findFirst()
+                .orElseThrow();
+        SpanData deserialize = tracing.span("deserialize");
+
+        assertThat(receive.getTraceId()).isEqualTo(producer.getTraceId());
+        assertThat(receive.getParentSpanId()).isEqualTo(producer.getSpanId());
+        assertThat(deserialize.getParentSpanId()).isEqualTo(receive.getSpanId());
+        String queueWait = receive.getAttributes().asMap().entrySet().stream()
+                .filter(entry -> entry.getKey().getKey().equals(QueueWaitObservationConvention.QUEUE_WAIT))
+                .map(entry -> String.valueOf(entry.getValue()))
+                .findFirst()
+                .orElseThrow();
+        assertThat(Long.parseLong(queueWait)).isGreaterThanOrEqualTo(1500);
+    }
+
+    @Test
+    void conversionOutsideATraceStartsNoSpans() {
+        converter.fromMessage(converter.toMessage(event(), new MessageProperties()));
+
+        assertThat(tracing.spans()).isEmpty();
+    }
+
+    private RabbitTemplate template(Channel channel) throws Exception {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createChannel(anyBoolean())).thenReturn(channel);
+        when(connection.isOpen()).thenReturn(true);
+        when(channel.isOpen()).thenReturn(true);
+
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean(io.micrometer.observation.ObservationRegistry.class, () -> tracing.registry);
+        context.refresh();
+
+        RabbitTemplate template = new RabbitTemplate(connectionFactory);
+        template.setMessageConverter(converter);
+        template.setBeforePublishPostProcessors(PublishTimestamps::stamp);
+        template.setObservationEnabled(true);
+        template.setApplicationContext(context);
+        return template;
+    }
+
+    private static EventMessage event() {
+        return EventMessage.builder()
+                .id("msg-1")
+                .key("order-1")
+                .type("order.created")
+                .content("{}")
+                .timestamp(LocalDateTime.now())
+                .source("test")
+                .build();
+    }
+}